@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Запуск бенчмарков для нескольких чисел потоков подряд.
+ * <p>
+ * Аргументы командной строки — обычные аргументы JMH (фильтр, -f, -wi, -i и т.д.).
+ * Числа потоков задаются списком в -Djmh.threads=1,4; для каждого пишется
+ * отдельный JSON-отчёт threads-N.json в каталог -Djmh.resultDir, их можно сравнивать
+ * между версиями, например через jmh.morethan.io.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Path resultDir = Path.of(System.getProperty("jmh.resultDir", "target/jmh"));
+        Files.createDirectories(resultDir);
+        for (String value : System.getProperty("jmh.threads", "1").split(",")) {
+            int threads = Integer.parseInt(value.trim());
+            Options options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultDir.resolve("threads-" + threads + ".json").toString())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути FilmService: популярные фильмы, полный список и лайки.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilmServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    int films;
+
+    @Param({"20"})
+    int maxLikesPerFilm;
+
+    private FilmService filmService;
+    private int users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        filmService = new FilmService(filmStorage, userStorage, new SimpleMeterRegistry(), event -> {
+        });
+        users = films;
+        for (int i = 0; i < users; i++) {
+            userStorage.createUser(createUser(i));
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < films; i++) {
+            Film film = filmStorage.createFilm(createFilm(i));
+            int likes = random.nextInt(maxLikesPerFilm + 1);
+            for (int like = 0; like < likes; like++) {
+                filmStorage.addLike(film.getId(), 1 + random.nextInt(users));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilms() {
+        return filmService.getPopularFilms(10);
+    }
+
+    @Benchmark
+    public List<Film> findAll() {
+        return filmService.findAll();
+    }
+
+    // Лайк и его снятие: размер данных не растёт от итерации к итерации
+    @Benchmark
+    public void addAndRemoveLike() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int filmId = 1 + random.nextInt(films);
+        int userId = 1 + random.nextInt(users);
+        filmService.addLike(filmId, userId);
+        filmService.removeLike(filmId, userId);
+    }
+
+    private static Film createFilm(int i) {
+        Film film = new Film();
+        film.setName("Film " + i);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i % 5_000));
+        film.setDuration(90);
+        return film;
+    }
+
+    private static User createUser(int i) {
+        User user = new User();
+        user.setEmail("user" + i + "@mail.com");
+        user.setLogin("user" + i);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
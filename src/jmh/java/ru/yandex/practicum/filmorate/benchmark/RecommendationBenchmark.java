@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmRecommendationService;
+import ru.yandex.practicum.filmorate.service.RecommendationProperties;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка запроса рекомендаций фильмов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecommendationBenchmark {
+
+    @Param({"10000"})
+    int users;
+
+    @Param({"5000"})
+    int films;
+
+    @Param({"20", "50"})
+    int likesPerUser;
+
+    private FilmRecommendationService recommendationService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        for (int i = 0; i < users; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@mail.com");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userStorage.createUser(user);
+        }
+        for (int i = 0; i < films; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Описание");
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(90);
+            filmStorage.createFilm(film);
+        }
+        // Перекос популярности: младшие ID лайкают чаще
+        Random random = new Random(42);
+        for (int userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < likesPerUser; i++) {
+                int filmId = 1 + (int) (films * Math.pow(random.nextDouble(), 2));
+                filmStorage.addLike(filmId, userId);
+            }
+        }
+        recommendationService = new FilmRecommendationService(filmStorage, userStorage,
+                new RecommendationProperties());
+        recommendationService.afterSingletonsInstantiated();
+    }
+
+    @Benchmark
+    public List<Film> getRecommendations() {
+        return recommendationService.getRecommendations(1 + ThreadLocalRandom.current().nextInt(users), 10);
+    }
+}
@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.cache.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.jdbc.JdbcFilmStorage;
+import ru.yandex.practicum.filmorate.storage.jdbc.JdbcStorageConfiguration;
+import ru.yandex.practicum.filmorate.storage.mvcc.MvccFilmStorage;
+import ru.yandex.practicum.filmorate.storage.sharded.ShardedFilmStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Хранилище в памяти (обычное, шардированное, многоверсионное) против H2 (без кэша и с кэшем) на одинаковой
+ * нагрузке через интерфейс FilmStorage:
+ * {@code mvn -Pjmh test-compile exec:exec@jmh -Djmh.args="-f 1 StorageBenchmark"}
+ * <p>
+ * Масштабирование записей по ядрам — те же замеры при разном числе потоков:
+ * {@code mvn -Pjmh test-compile exec:exec@jmh -Djmh.threads=1,2,4,8
+ * -Djmh.args="-f 1 -p storage=memory,sharded StorageBenchmark.addAndRemoveLike"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageBenchmark {
+
+    private static final int BATCH = 50;
+    // Постоянное число шардов, чтобы замеры на машинах с разным числом ядер были сравнимы
+    private static final int SHARDS = 16;
+
+    @Param({"memory", "sharded", "mvcc", "h2", "h2-cached"})
+    String storage;
+
+    @Param({"10000"})
+    int films;
+
+    @Param({"20"})
+    int maxLikesPerFilm;
+
+    private FilmStorage filmStorage;
+    private HikariDataSource dataSource;
+    private int users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (storage.startsWith("h2")) {
+            dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1");
+            dataSource.setMaximumPoolSize(16);
+            new ResourceDatabasePopulator(new DefaultResourceLoader().getResource(JdbcStorageConfiguration.SCHEMA))
+                    .execute(dataSource);
+            filmStorage = new JdbcFilmStorage(new JdbcTemplate(dataSource),
+                    new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+            if (storage.equals("h2-cached")) {
+                filmStorage = new CachingFilmStorage(filmStorage, films, new SimpleMeterRegistry());
+            }
+        } else if (storage.equals("mvcc")) {
+            filmStorage = new MvccFilmStorage();
+        } else if (storage.equals("sharded")) {
+            filmStorage = new ShardedFilmStorage(SHARDS);
+        } else {
+            filmStorage = new InMemoryFilmStorage();
+        }
+        users = films;
+        Random random = new Random(42);
+        for (int i = 0; i < films; i++) {
+            Film film = createFilm(i);
+            int likes = random.nextInt(maxLikesPerFilm + 1);
+            for (int like = 0; like < likes; like++) {
+                film.addLike(1 + random.nextInt(users));
+            }
+            filmStorage.createFilm(film);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (dataSource != null) {
+            new JdbcTemplate(dataSource).execute("DROP ALL OBJECTS");
+            dataSource.close();
+        }
+    }
+
+    @Benchmark
+    public List<Film> findPopular() {
+        return filmStorage.findPopular(10);
+    }
+
+    @Benchmark
+    public Film findById() {
+        return filmStorage.findById(1 + ThreadLocalRandom.current().nextInt(films));
+    }
+
+    // Лайк и его снятие: размер данных не растёт от итерации к итерации
+    @Benchmark
+    public void addAndRemoveLike() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int filmId = 1 + random.nextInt(films);
+        int userId = users + 1 + random.nextInt(users);
+        filmStorage.addLike(filmId, userId);
+        filmStorage.removeLike(filmId, userId);
+    }
+
+    // Пачка лайков одного фильма: в H2 — один пакет JDBC на добавление и один на удаление
+    @Benchmark
+    public void applyAndRevertBatch() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int filmId = 1 + random.nextInt(films);
+        int[] userIds = new int[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            userIds[i] = users + 1 + random.nextInt(users);
+        }
+        filmStorage.applyLikes(filmId, userIds, new int[0]);
+        filmStorage.applyLikes(filmId, new int[0], userIds);
+    }
+
+    private static Film createFilm(int i) {
+        Film film = new Film();
+        film.setName("Film " + i);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i % 5_000));
+        film.setDuration(120);
+        return film;
+    }
+}
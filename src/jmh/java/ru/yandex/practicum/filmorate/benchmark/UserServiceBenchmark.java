@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути UserService: общие друзья и полный список.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    int users;
+
+    @Param({"10", "200"})
+    int friendsPerUser;
+
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        userService = new UserService(userStorage, new SimpleMeterRegistry(), event -> {
+        });
+        for (int i = 0; i < users; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@mail.com");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userStorage.createUser(user);
+        }
+        Random random = new Random(42);
+        for (int id = 1; id <= users; id++) {
+            for (int i = 0; i < friendsPerUser; i++) {
+                userStorage.addFriend(id, 1 + random.nextInt(users));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return userService.getCommonFriends(1 + random.nextInt(users), 1 + random.nextInt(users));
+    }
+
+    @Benchmark
+    public int countCommonFriends() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return userService.countCommonFriends(1 + random.nextInt(users), 1 + random.nextInt(users));
+    }
+
+    @Benchmark
+    public List<User> findAll() {
+        return userService.findAll();
+    }
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Условный GET по версии хранилища: сильный ETag и 304 на совпавший If-None-Match
+ * без выборки и сериализации тела.
+ * <p>
+ * Версия снимается до чтения данных, поэтому ETag никогда не новее тела. В ETag
+ * входит метка запуска процесса: после перезапуска счётчики версий начинаются заново,
+ * и старые ETag клиентов не должны с ними совпасть.
+ */
+final class ConditionalGet {
+
+    private static final String STARTUP = Long.toString(System.currentTimeMillis(), 36);
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * @param scope   имя набора данных, от которого зависит ответ
+     * @param version версия этого набора
+     * @param body    вычисляется только если клиентская копия устарела
+     */
+    static <T> ResponseEntity<T> respond(WebRequest request, String scope, long version, Supplier<T> body) {
+        String etag = "\"" + scope + "-" + STARTUP + "-" + version + "\"";
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(body.get());
+    }
+}
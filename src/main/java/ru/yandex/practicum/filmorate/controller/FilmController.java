@@ -1,13 +1,25 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.dto.LikeOperation;
+import ru.yandex.practicum.filmorate.dto.LikeOperationResult;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmSearchService;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikePipeline;
+import ru.yandex.practicum.filmorate.service.TrendingService;
 
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
 
@@ -17,7 +29,14 @@ import java.util.List;
 @RequiredArgsConstructor
 public class FilmController {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
     private final FilmService filmService;
+    private final FilmSearchService filmSearchService;
+    private final LikePipeline likePipeline;
+    private final TrendingService trendingService;
+    private final ObjectMapper objectMapper;
+    private final ResponseBytesCache responseCache;
 
     // Добавление фильма — с полной валидацией
     @PostMapping
@@ -33,29 +52,94 @@ public class FilmController {
         return filmService.updateFilmCustomValidation(film);
     }
 
-    // Получение всех фильмов
+    // Получение всех фильмов; с параметрами after/limit — постранично по курсору,
+    // с releasedFrom/releasedTo — фильмы, вышедшие в диапазоне дат, по индексу дат.
+    // ETag — версия хранилища фильмов: на неизменённые данные ответ 304 без тела
     @GetMapping
-    public Collection<Film> getAllFilms() {
-        return filmService.findAll();
+    public ResponseEntity<Collection<Film>> getAllFilms(@RequestParam(required = false) Integer after,
+                                                      @RequestParam(required = false) Integer limit,
+                                                      @RequestParam(required = false)
+                                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedFrom,
+                                                      @RequestParam(required = false)
+                                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedTo,
+                                                      WebRequest request) {
+        if (releasedFrom != null || releasedTo != null) {
+            if (after != null) {
+                throw new ValidationException("Параметр after нельзя сочетать с диапазоном дат.");
+            }
+            int rangeLimit = limit == null ? Integer.MAX_VALUE : limit;
+            return ConditionalGet.respond(request, "films", filmService.version(),
+                    () -> filmService.findByReleaseDate(releasedFrom, releasedTo, rangeLimit));
+        }
+        if (after == null && limit == null) {
+            return ConditionalGet.respond(request, "films", filmService.version(), filmService::findAll);
+        }
+        return ConditionalGet.respond(request, "films", filmService.version(), () ->
+                filmService.findPage(after == null ? 0 : after, limit == null ? DEFAULT_PAGE_SIZE : limit));
+    }
+
+    // Поиск по названию и описанию: префиксы и опечатки, с учётом лайков
+    @GetMapping("/search")
+    public List<Film> searchFilms(@RequestParam String query, @RequestParam(defaultValue = "10") int limit) {
+        return filmSearchService.search(query, limit);
     }
 
-    // Поставить лайк фильму
+    // Выгрузка всех фильмов в NDJSON потоком, без сборки полного списка
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportFilms() {
+        return NdjsonExport.stream(objectMapper, filmService::forEachFilm);
+    }
+
+    // Удалить фильм вместе с его лайками
+    @DeleteMapping("/{id}")
+    public void deleteFilm(@PathVariable int id) {
+        log.info("Удаление фильма: {}", id);
+        filmService.deleteFilm(id);
+    }
+
+    // Поставить лайк фильму; в асинхронном режиме — 202, лайк применится в фоне
     @PutMapping("/{id}/like/{userId}")
     public ResponseEntity<?> addLike(@PathVariable int id, @PathVariable int userId) {
+        if (likePipeline.isEnabled()) {
+            likePipeline.submit(id, userId, LikeOperation.Type.ADD);
+            return ResponseEntity.accepted().build();
+        }
         filmService.addLike(id, userId); // Le eccezioni vengono gestite dal GlobalExceptionHandler
         return ResponseEntity.ok().build();
     }
 
-    // Удалить лайк у фильма
+    // Удалить лайк у фильма; в асинхронном режиме — 202
     @DeleteMapping("/{id}/like/{userId}")
     public ResponseEntity<?> removeLike(@PathVariable int id, @PathVariable int userId) {
+        if (likePipeline.isEnabled()) {
+            likePipeline.submit(id, userId, LikeOperation.Type.REMOVE);
+            return ResponseEntity.accepted().build();
+        }
         filmService.removeLike(id, userId);
         return ResponseEntity.ok().build();
     }
 
-    // Получить топ популярных фильмов
-    @GetMapping("/popular")
-    public List<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count) {
-        return filmService.getPopularFilms(count);
+    // Пакетная загрузка лайков: результат по каждому элементу в порядке запроса
+    @PostMapping("/likes/batch")
+    public List<LikeOperationResult> applyLikeBatch(@RequestBody List<LikeOperation> operations) {
+        log.info("Пакет лайков: {} операций", operations.size());
+        return filmService.applyLikeBatch(operations);
+    }
+
+    // Получить топ популярных фильмов; ETag — версия хранилища фильмов,
+    // тело — готовый JSON из кэша, пока эта версия не изменилась
+    @GetMapping(value = "/popular", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getPopularFilms(@RequestParam(defaultValue = "10") int count,
+                                                  WebRequest request) {
+        long version = filmService.version();
+        return ConditionalGet.respond(request, "films", version, () ->
+                responseCache.get("popular:" + count, version, () -> filmService.getPopularFilms(count)));
+    }
+
+    // Фильмы, набирающие лайки: топ по приросту лайков за окно 1h, 24h или 7d
+    @GetMapping("/trending")
+    public List<Film> getTrendingFilms(@RequestParam(defaultValue = "24h") String window,
+                                       @RequestParam(defaultValue = "10") int count) {
+        return trendingService.getTrendingFilms(TrendingService.Window.fromParam(window), count);
     }
 }
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Потоковая выгрузка в NDJSON: по одному JSON-объекту на строку, прямо в поток ответа.
+ * Ответ не собирается ни в список, ни в буфер — память не зависит от размера выгрузки.
+ */
+final class NdjsonExport {
+
+    private NdjsonExport() {
+    }
+
+    /**
+     * @param source обходит выгружаемые объекты и передаёт каждый в полученный Consumer
+     */
+    static <T> ResponseEntity<StreamingResponseBody> stream(ObjectMapper mapper, Consumer<Consumer<T>> source) {
+        // Сброс в сокет — по заполнении буфера генератора, а не после каждого объекта
+        ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = writer.createGenerator(out);
+            generator.setRootValueSeparator(null); // строки разделяет только перевод строки
+            source.accept(item -> {
+                try {
+                    writer.writeValue(generator, item);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
@@ -0,0 +1,155 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.event.FriendshipChangedEvent;
+import ru.yandex.practicum.filmorate.event.UserDeletedEvent;
+import ru.yandex.practicum.filmorate.event.UserSavedEvent;
+import ru.yandex.practicum.filmorate.event.UsersClearedEvent;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Кэш готовых JSON-ответов (UTF-8) для самых частых чтений: попадание — это запись
+ * одного массива байт в ответ, без выборки и без Jackson.
+ * <p>
+ * Запись действительна, пока совпадает её версия. Для популярных фильмов версия —
+ * версия хранилища фильмов. Для пользователя и списка друзей — поколение ключа,
+ * которое сдвигают события ровно тех изменений, что влияют на ответ:
+ * <ul>
+ *     <li>пользователь — его собственные изменения и изменения его дружб;</li>
+ *     <li>список друзей X — дружбы X, а также изменения любого друга X
+ *     (в ответе лежат друзья целиком, вместе с их списками друзей).</li>
+ * </ul>
+ * Поколение снимается до чтения данных: если изменение успело между чтением и записью
+ * в кэш, запись сразу окажется устаревшей и не будет отдана.
+ * <p>
+ * Записей не больше max-entries: редкие ключи вытесняются (W-TinyLFU), так что
+ * часто запрашиваемые новые ключи попадают в кэш и после его заполнения.
+ */
+@Component
+public class ResponseBytesCache {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final ObjectWriter writer;
+    private final UserService userService;
+    private final boolean enabled;
+    private final Cache<String, Entry> entries;
+    // Поколения по полосам хеша ключа: коллизия даёт лишний промах, но не устаревший ответ
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public ResponseBytesCache(ObjectMapper objectMapper, UserService userService,
+                              ResponseCacheProperties properties) {
+        this.writer = objectMapper.writer();
+        this.userService = userService;
+        this.enabled = properties.getMaxEntries() > 0;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(Math.max(0, properties.getMaxEntries()))
+                .build();
+    }
+
+    private record Entry(long version, byte[] json) {
+    }
+
+    /**
+     * Ответ, актуальный, пока не изменилась версия внешнего источника.
+     *
+     * @param body вычисляется только при промахе; исключение не кэшируется
+     */
+    public byte[] get(String key, long version, Supplier<?> body) {
+        Entry entry = entries.getIfPresent(key);
+        if (entry != null && entry.version() == version) {
+            return entry.json();
+        }
+        byte[] json;
+        try {
+            json = writer.writeValueAsBytes(body.get());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (enabled) {
+            entries.asMap().merge(key, new Entry(version, json),
+                    (old, fresh) -> fresh.version() >= old.version() ? fresh : old);
+        }
+        return json;
+    }
+
+    /**
+     * Ответ, актуальный до вызова {@link #invalidate(String)} для этого ключа.
+     */
+    public byte[] get(String key, Supplier<?> body) {
+        return get(key, generations.get(stripe(key)), body);
+    }
+
+    public void invalidate(String key) {
+        generations.incrementAndGet(stripe(key));
+        entries.invalidate(key);
+    }
+
+    // Сбросить весь кэш
+    public void clear() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        entries.invalidateAll();
+    }
+
+    public static String userKey(int userId) {
+        return "user:" + userId;
+    }
+
+    public static String friendsKey(int userId) {
+        return "friends:" + userId;
+    }
+
+    @EventListener
+    public void onUserSaved(UserSavedEvent event) {
+        invalidate(userKey(event.userId()));
+        for (int friendId : event.previousFriendIds()) {
+            invalidate(friendsKey(friendId));
+        }
+        for (int friendId : userService.findFriendIds(event.userId())) {
+            invalidate(friendsKey(friendId));
+        }
+    }
+
+    @EventListener
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        for (int userId : new int[]{event.userId(), event.friendId()}) {
+            invalidate(userKey(userId));
+            invalidate(friendsKey(userId));
+            // Друзья этого пользователя показывают его вместе со списком друзей
+            for (int friendId : userService.findFriendIds(userId)) {
+                invalidate(friendsKey(friendId));
+            }
+        }
+    }
+
+    // Дружбы удалённого пользователя к этому моменту сняты и уже сбросили списки друзей
+    @EventListener
+    public void onUserDeleted(UserDeletedEvent event) {
+        invalidate(userKey(event.userId()));
+        invalidate(friendsKey(event.userId()));
+    }
+
+    @EventListener
+    public void onUsersCleared(UsersClearedEvent event) {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        entries.asMap().keySet().removeIf(key -> key.startsWith("user:") || key.startsWith("friends:"));
+    }
+
+    private static int stripe(String key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % GENERATION_STRIPES;
+    }
+}
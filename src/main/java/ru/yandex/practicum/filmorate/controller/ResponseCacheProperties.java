@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки кэша готовых JSON-ответов (filmorate.response-cache.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "filmorate.response-cache")
+public class ResponseCacheProperties {
+    // Сколько ответов хранить; 0 — кэш выключен
+    private int maxEntries = 10_000;
+}
@@ -1,10 +1,22 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.dto.FriendSuggestion;
+import ru.yandex.practicum.filmorate.exception.OverloadedException;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmRecommendationService;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FriendSuggestionService;
+import ru.yandex.practicum.filmorate.service.LikePipeline;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.List;
@@ -15,7 +27,15 @@ import java.util.List;
 @RequestMapping("/users")
 public class UserController {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
     private final UserService userService;
+    private final FilmService filmService;
+    private final LikePipeline likePipeline;
+    private final FriendSuggestionService friendSuggestionService;
+    private final FilmRecommendationService filmRecommendationService;
+    private final ObjectMapper objectMapper;
+    private final ResponseBytesCache responseCache;
 
     // Создание пользователя с полной валидацией
     @PostMapping
@@ -31,17 +51,47 @@ public class UserController {
         return userService.updateUser(user);
     }
 
-    // Получение всех пользователей
+    // Получение всех пользователей; с параметрами after/limit — постранично по курсору.
+    // ETag — версия хранилища пользователей: на неизменённые данные ответ 304 без тела
     @GetMapping
-    public List<User> getAllUsers() {
-        return userService.findAll();
+    public ResponseEntity<List<User>> getAllUsers(@RequestParam(required = false) Integer after,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  WebRequest request) {
+        if (after == null && limit == null) {
+            return ConditionalGet.respond(request, "users", userService.version(), userService::findAll);
+        }
+        return ConditionalGet.respond(request, "users", userService.version(), () ->
+                userService.findPage(after == null ? 0 : after, limit == null ? DEFAULT_PAGE_SIZE : limit));
+    }
+
+    // Выгрузка всех пользователей в NDJSON потоком, без сборки полного списка
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        return NdjsonExport.stream(objectMapper, userService::forEachUser);
     }
 
-    // Получение пользователя по ID
-    @GetMapping("/{id}")
-    public User getUserById(@PathVariable int id) {
+    // Получение пользователя по ID: готовый JSON из кэша
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public byte[] getUserById(@PathVariable int id) {
         log.info("Запрошен пользователь с ID: {}", id);
-        return userService.findById(id);
+        return responseCache.get(ResponseBytesCache.userKey(id), () -> userService.findById(id));
+    }
+
+    // Удаление пользователя: дружбы и лайки снимаются каскадом
+    @DeleteMapping("/{id}")
+    public void deleteUser(@PathVariable int id) {
+        log.info("Удаление пользователя: {}", id);
+        userService.deleteUser(id);
+    }
+
+    // Фильмы, лайкнутые пользователем; сначала дожидаемся его лайков из асинхронной очереди,
+    // а если они не успели примениться — 503 вместо списка без его же лайков
+    @GetMapping("/{id}/likes")
+    public List<Film> getLikedFilms(@PathVariable int id) {
+        if (!likePipeline.awaitApplied(id)) {
+            throw new OverloadedException("Лайки пользователя ещё применяются, повторите запрос позже.");
+        }
+        return filmService.getLikedFilms(id);
     }
 
     // Добавление в друзья
@@ -56,10 +106,10 @@ public class UserController {
         userService.removeFriend(id, friendId);
     }
 
-    // Получение списка друзей
-    @GetMapping("/{id}/friends")
-    public List<User> getFriends(@PathVariable int id) {
-        return userService.getFriends(id);
+    // Получение списка друзей: готовый JSON из кэша
+    @GetMapping(value = "/{id}/friends", produces = MediaType.APPLICATION_JSON_VALUE)
+    public byte[] getFriends(@PathVariable int id) {
+        return responseCache.get(ResponseBytesCache.friendsKey(id), () -> userService.getFriends(id));
     }
 
     // Получение списка общих друзей
@@ -68,5 +118,23 @@ public class UserController {
         return userService.getCommonFriends(id, otherId);
     }
 
+    // Число общих друзей
+    @GetMapping("/{id}/friends/common/{otherId}/count")
+    public int countCommonFriends(@PathVariable int id, @PathVariable int otherId) {
+        return userService.countCommonFriends(id, otherId);
+    }
+
+    // Рекомендации друзей: друзья друзей по числу общих друзей
+    @GetMapping("/{id}/suggestions")
+    public List<FriendSuggestion> getSuggestions(@PathVariable int id,
+                                                 @RequestParam(defaultValue = "10") int limit) {
+        return friendSuggestionService.getSuggestions(id, limit);
+    }
+
+    // Рекомендации фильмов по лайкам пользователей со схожими вкусами
+    @GetMapping("/{id}/recommendations")
+    public List<Film> getRecommendations(@PathVariable int id, @RequestParam(defaultValue = "10") int limit) {
+        return filmRecommendationService.getRecommendations(id, limit);
+    }
 
 }
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.yandex.practicum.filmorate.model.User;
+
+/**
+ * Рекомендованный друг и число общих друзей с ним.
+ */
+@Data
+@AllArgsConstructor
+public class FriendSuggestion {
+    private User user;
+    private int mutualFriends;
+}
@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Элемент пакетной загрузки лайков.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LikeOperation {
+    private int filmId;
+    private int userId;
+    private Type op;
+
+    public enum Type {
+        ADD,
+        REMOVE
+    }
+}
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Результат одного элемента пакетной загрузки лайков (в том же порядке, что и запрос).
+ */
+@Data
+@AllArgsConstructor
+public class LikeOperationResult {
+    private int filmId;
+    private int userId;
+    private boolean success;
+    private String error;
+
+    public static LikeOperationResult ok(LikeOperation operation) {
+        return new LikeOperationResult(operation.getFilmId(), operation.getUserId(), true, null);
+    }
+
+    public static LikeOperationResult failed(LikeOperation operation, String error) {
+        return new LikeOperationResult(operation.getFilmId(), operation.getUserId(), false, error);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.event;
+
+/**
+ * Фильм удалён вместе с его лайками.
+ */
+public record FilmDeletedEvent(int filmId) {
+}
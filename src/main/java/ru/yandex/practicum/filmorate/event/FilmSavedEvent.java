@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.event;
+
+/**
+ * Фильм создан или изменён. Текущее состояние нужно читать из хранилища.
+ */
+public record FilmSavedEvent(int filmId) {
+}
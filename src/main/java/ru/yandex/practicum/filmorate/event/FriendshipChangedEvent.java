@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.event;
+
+/**
+ * Дружба двух пользователей добавлена или удалена (в обе стороны).
+ */
+public record FriendshipChangedEvent(int userId, int friendId, boolean added) {
+}
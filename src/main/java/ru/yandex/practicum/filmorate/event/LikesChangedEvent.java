@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.event;
+
+/**
+ * Лайки фильма от перечисленных пользователей могли измениться.
+ * Текущее состояние нужно читать из хранилища: порядок событий при гонках
+ * не обязан совпадать с порядком изменений.
+ *
+ * @param delta на сколько изменилось число лайков фильма этим изменением;
+ *              сумма по событиям от порядка не зависит
+ */
+public record LikesChangedEvent(int filmId, int[] userIds, int delta) {
+}
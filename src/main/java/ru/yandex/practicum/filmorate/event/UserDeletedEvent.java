@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.event;
+
+/**
+ * Пользователь удалён; его дружбы уже сняты, лайки снимаются по этому событию.
+ */
+public record UserDeletedEvent(int userId) {
+}
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.event;
+
+/**
+ * Пользователь создан или изменён. Текущее состояние нужно читать из хранилища.
+ *
+ * @param previousFriendIds друзья до изменения: PUT заменяет пользователя целиком,
+ *                          и в их списках друзей он тоже мог измениться
+ */
+public record UserSavedEvent(int userId, int[] previousFriendIds) {
+}
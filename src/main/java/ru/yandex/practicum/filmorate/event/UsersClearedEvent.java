@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.event;
+
+/**
+ * Все пользователи удалены.
+ */
+public record UsersClearedEvent() {
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Очередь обработки заполнена: клиенту стоит повторить запрос позже.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class OverloadedException extends RuntimeException {
+    public OverloadedException(String message) {
+        super(message);
+    }
+}
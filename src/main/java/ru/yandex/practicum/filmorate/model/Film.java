@@ -2,11 +2,11 @@ package ru.yandex.practicum.filmorate.model;
 
 import jakarta.validation.constraints.*;
 import lombok.Data;
+import ru.yandex.practicum.filmorate.util.IntSet;
 import ru.yandex.practicum.filmorate.validation.ReleaseDateConstraint;
 
 import java.time.LocalDate;
 import java.util.Set;
-import java.util.HashSet;
 
 /**
  * Модель фильма
@@ -29,7 +29,40 @@ public class Film {
     @Positive(message = "Продолжительность должна быть положительной")
     private int duration;
 
-    private Set<Integer> likes = new HashSet<>();
+    private IntSet likes = new IntSet(); // компактное потокобезопасное множество ID пользователей
+
+    /**
+     * Копия фильма с собственным множеством лайков: её можно менять, не затрагивая объект,
+     * который отдало хранилище и могут читать другие потоки.
+     */
+    public Film copy() {
+        return withLikes(new IntSet(likes));
+    }
+
+    /**
+     * Копия фильма с заданным множеством лайков — без копирования самого множества.
+     * Для хранилищ, которые никогда не меняют уже отданные множества
+     * (см. {@link ru.yandex.practicum.filmorate.storage.mvcc.MvccFilmStorage}).
+     */
+    public Film withLikes(IntSet likes) {
+        Film copy = new Film();
+        copy.setId(id);
+        copy.setName(name);
+        copy.setDescription(description);
+        copy.setReleaseDate(releaseDate);
+        copy.setDuration(duration);
+        copy.likes = likes;
+        return copy;
+    }
+
+    /**
+     * Заменить лайки, сохранив компактное потокобезопасное множество.
+     *
+     * @param likes ID пользователей, поставивших лайк
+     */
+    public void setLikes(Set<Integer> likes) {
+        this.likes = likes == null ? new IntSet() : new IntSet(likes);
+    }
 
     /**
      * Добавить лайк от пользователя.
@@ -50,4 +83,24 @@ public class Film {
     public boolean removeLike(int userId) {
         return likes.remove(userId);
     }
+
+    /**
+     * Добавить лайки пачкой.
+     *
+     * @param userIds ID пользователей
+     * @return число действительно добавленных лайков
+     */
+    public int addLikes(int[] userIds) {
+        return likes.addAll(userIds);
+    }
+
+    /**
+     * Удалить лайки пачкой.
+     *
+     * @param userIds ID пользователей
+     * @return число действительно удалённых лайков
+     */
+    public int removeLikes(int[] userIds) {
+        return likes.removeAll(userIds);
+    }
 }
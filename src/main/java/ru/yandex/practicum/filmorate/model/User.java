@@ -2,9 +2,9 @@ package ru.yandex.practicum.filmorate.model;
 
 import jakarta.validation.constraints.*;
 import lombok.Data;
+import ru.yandex.practicum.filmorate.util.IntSet;
 
 import java.time.LocalDate;
-import java.util.HashSet;
 import java.util.Set;
 
 @Data
@@ -24,7 +24,40 @@ public class User {
     @Past(message = "Дата рождения должна быть в прошлом") // Дата в прошлом
     private LocalDate birthday;
 
-    private Set<Integer> friends = new HashSet<>(); // Список ID друзей
+    private IntSet friends = new IntSet(); // Список ID друзей (компактный, потокобезопасный)
+
+    /**
+     * Копия пользователя с собственным множеством друзей: её можно менять, не затрагивая объект,
+     * который отдало хранилище и могут читать другие потоки.
+     */
+    public User copy() {
+        return withFriends(new IntSet(friends));
+    }
+
+    /**
+     * Копия пользователя с заданным множеством друзей — без копирования самого множества.
+     * Для хранилищ, которые никогда не меняют уже отданные множества
+     * (см. {@link ru.yandex.practicum.filmorate.storage.mvcc.MvccUserStorage}).
+     */
+    public User withFriends(IntSet friends) {
+        User copy = new User();
+        copy.setId(id);
+        copy.setEmail(email);
+        copy.setLogin(login);
+        copy.setName(name);
+        copy.setBirthday(birthday);
+        copy.friends = friends;
+        return copy;
+    }
+
+    /**
+     * Заменить список друзей, сохранив компактное потокобезопасное множество.
+     *
+     * @param friends ID друзей
+     */
+    public void setFriends(Set<Integer> friends) {
+        this.friends = friends == null ? new IntSet() : new IntSet(friends);
+    }
 
     /**
      * Добавляет друга.
@@ -0,0 +1,144 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.LikesChangedEvent;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.util.IntCountMap;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Рекомендации фильмов по схожести вкусов (item-to-item).
+ * <p>
+ * Модель — матрица совместной встречаемости: для пары фильмов хранится число
+ * пользователей, лайкнувших оба. Она обновляется при каждом лайке: новый лайк
+ * пользователя u фильму f добавляет по единице к парам (f, g) для всех g, которые
+ * u уже лайкнул, — O(лайков пользователя), без пересчёта модели целиком.
+ * <p>
+ * Запрос суммирует строки матрицы по лайкам пользователя и отбрасывает уже
+ * лайкнутые фильмы. Если похожих фильмов нет, отдаются популярные.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FilmRecommendationService implements SmartInitializingSingleton {
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final RecommendationProperties properties;
+    // Лайки по пользователям — в том виде, в каком они учтены в матрице
+    private final Map<Integer, IntSet> likesByUser = new ConcurrentHashMap<>();
+    // Фильм -> (фильм -> число пользователей, лайкнувших оба); строки на примитивных массивах
+    private final Map<Integer, IntCountMap> cooccurrence = new ConcurrentHashMap<>();
+
+    // Модель строится по хранилищу после восстановления данных, до приёма запросов
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (Film film : filmStorage.findAll()) {
+            film.getLikes().forEachInt(userId -> syncLike(film.getId(), userId));
+        }
+        log.info("Модель рекомендаций построена: {} пользователей, {} фильмов",
+                likesByUser.size(), cooccurrence.size());
+    }
+
+    public List<Film> getRecommendations(int userId, int limit) {
+        if (limit <= 0 || limit > properties.getMaxResults()) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + properties.getMaxResults() + ".");
+        }
+        if (userStorage.findById(userId) == null) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        IntSet liked = likesByUser.getOrDefault(userId, new IntSet());
+        IntCountMap scores = new IntCountMap();
+        for (int filmId : liked.toIntArray(properties.getMaxLikesScanned())) {
+            IntCountMap row = cooccurrence.get(filmId);
+            if (row != null) {
+                row.forEach(scores::add);
+            }
+        }
+
+        // Ключ сортировки в одном long: больший счёт — раньше, при равенстве — меньший ID.
+        // Уже лайкнутые фильмы отсекаются здесь, а не в горячем цикле выше
+        long[] keys = new long[scores.size()];
+        int[] filled = new int[1];
+        scores.forEach((filmId, score) -> {
+            if (!liked.contains(filmId)) {
+                keys[filled[0]++] = ((long) (Integer.MAX_VALUE - score) << 32) | filmId;
+            }
+        });
+        if (filled[0] == 0) {
+            return popularNotLiked(liked, limit);
+        }
+        Arrays.sort(keys, 0, filled[0]);
+        List<Film> recommendations = new ArrayList<>(Math.min(limit, filled[0]));
+        for (int i = 0; i < filled[0] && recommendations.size() < limit; i++) {
+            Film film = filmStorage.findById((int) keys[i]);
+            if (film != null) {
+                recommendations.add(film);
+            }
+        }
+        return recommendations;
+    }
+
+    // Холодный старт: похожих фильмов нет, отдаём популярные
+    private List<Film> popularNotLiked(IntSet liked, int limit) {
+        return filmStorage.findPopular(limit + liked.size()).stream()
+                .filter(film -> !liked.contains(film.getId()))
+                .limit(limit)
+                .toList();
+    }
+
+    @EventListener
+    public void onLikesChanged(LikesChangedEvent event) {
+        for (int userId : event.userIds()) {
+            syncLike(event.filmId(), userId);
+        }
+    }
+
+    /**
+     * Привести модель к текущему состоянию лайка в хранилище.
+     * Состояние читается под блокировкой пользователя, поэтому последнее
+     * применённое событие видит последнее изменение, в каком бы порядке ни пришли события.
+     */
+    private void syncLike(int filmId, int userId) {
+        IntSet liked = likesByUser.computeIfAbsent(userId, id -> new IntSet());
+        synchronized (liked) {
+            Film film = filmStorage.findById(filmId);
+            boolean likedNow = film != null && film.getLikes().contains(userId);
+            if (likedNow && liked.add(filmId)) {
+                liked.forEachInt(otherId -> {
+                    if (otherId != filmId) {
+                        increment(filmId, otherId);
+                        increment(otherId, filmId);
+                    }
+                });
+            } else if (!likedNow && liked.remove(filmId)) {
+                liked.forEachInt(otherId -> {
+                    decrement(filmId, otherId);
+                    decrement(otherId, filmId);
+                });
+            }
+        }
+    }
+
+    private void increment(int filmId, int otherId) {
+        cooccurrence.computeIfAbsent(filmId, id -> new IntCountMap()).add(otherId, 1);
+    }
+
+    private void decrement(int filmId, int otherId) {
+        IntCountMap row = cooccurrence.get(filmId);
+        if (row != null) {
+            row.add(otherId, -1);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.event.FilmSavedEvent;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Полнотекстовый поиск по названию и описанию фильмов.
+ * <p>
+ * Инвертированный индекс: слово -> ID фильмов (отдельно для названия и описания),
+ * плюс отсортированный словарь слов для поиска по префиксу. Каждое слово запроса
+ * сопоставляется точно, по префиксу (только последнее слово — ввод ещё не закончен)
+ * и с одной опечаткой (вставка, удаление, замена или перестановка соседних букв;
+ * варианты порождаются из запроса и проверяются по словарю, без перебора словаря).
+ * Фильм должен совпасть со всеми словами запроса.
+ * <p>
+ * Релевантность: точное совпадение весит больше префикса, префикс — больше опечатки,
+ * совпадение в названии — вдвое больше, чем в описании. Итоговый счёт дополнительно
+ * растёт с логарифмом числа лайков; лайки читаются только у limit * 20 лучших по
+ * релевантности. Кандидаты перебираются от самого редкого слова запроса, не больше
+ * 5000 — это держит задержку на больших каталогах.
+ * <p>
+ * Индекс обновляется по событиям FilmService: фильм перечитывается из хранилища,
+ * и меняются только постинги слов, которые действительно добавились или пропали.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FilmSearchService implements SmartInitializingSingleton {
+
+    private static final int EXACT_WEIGHT = 10;
+    private static final int PREFIX_WEIGHT = 7;
+    private static final int TYPO_WEIGHT = 5;
+    private static final int NAME_FIELD_WEIGHT = 2;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MIN_TYPO_LENGTH = 4;
+    private static final int MAX_PREFIX_EXPANSIONS = 10;
+    private static final int MAX_QUERY_TERMS = 8;
+    private static final int MAX_RESULTS = 100;
+    private static final int MAX_CANDIDATES = 5_000;
+    private static final int RERANK_FACTOR = 20;
+    private static final double LIKE_BOOST = 0.1;
+    private static final int LOCK_STRIPES = 64;
+
+    private final FilmStorage filmStorage;
+
+    private final Map<String, Postings> postings = new ConcurrentHashMap<>();
+    private final NavigableSet<String> dictionary = new ConcurrentSkipListSet<>();
+    private final Set<Character> alphabet = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, IndexedFilm> indexed = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    {
+        Arrays.setAll(locks, i -> new Object());
+    }
+
+    // ID фильмов, где слово встречается в названии и в описании
+    private record Postings(IntSet name, IntSet description) {
+        boolean isEmpty() {
+            return name.isEmpty() && description.isEmpty();
+        }
+    }
+
+    // Слова, под которыми фильм сейчас лежит в индексе
+    private record IndexedFilm(Set<String> name, Set<String> description) {
+    }
+
+    // Вариант слова запроса: постинги слова из словаря и вес совпадения
+    private record Expansion(Postings postings, int weight) {
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (Film film : filmStorage.findAll()) {
+            reindex(film.getId());
+        }
+        log.info("Поисковый индекс построен: {} фильмов, {} слов", indexed.size(), dictionary.size());
+    }
+
+    public List<Film> search(String query, int limit) {
+        if (limit <= 0 || limit > MAX_RESULTS) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_RESULTS + ".");
+        }
+        List<String> terms = new ArrayList<>(tokenize(query));
+        if (terms.isEmpty()) {
+            throw new ValidationException("Поисковый запрос не может быть пустым.");
+        }
+        if (terms.size() > MAX_QUERY_TERMS) {
+            terms = terms.subList(0, MAX_QUERY_TERMS);
+        }
+
+        List<List<Expansion>> expansions = new ArrayList<>(terms.size());
+        int driver = 0;
+        long driverSize = Long.MAX_VALUE;
+        for (int i = 0; i < terms.size(); i++) {
+            List<Expansion> termExpansions = expand(terms.get(i), i == terms.size() - 1);
+            if (termExpansions.isEmpty()) {
+                return List.of();
+            }
+            long size = 0;
+            for (Expansion expansion : termExpansions) {
+                size += expansion.postings().name().size() + expansion.postings().description().size();
+            }
+            if (size < driverSize) {
+                driver = i;
+                driverSize = size;
+            }
+            expansions.add(termExpansions);
+        }
+
+        // Кандидаты — фильмы самого редкого слова; остальные слова проверяются двоичным поиском.
+        // Ключ ранжирования: (MAX - релевантность) в старших битах, ID в младших
+        BitSet seen = new BitSet();
+        long[] ranked = new long[MAX_CANDIDATES];
+        int count = 0;
+        for (Expansion expansion : expansions.get(driver)) {
+            for (IntSet ids : List.of(expansion.postings().name(), expansion.postings().description())) {
+                for (int filmId : ids.toIntArray()) {
+                    if (count == MAX_CANDIDATES) {
+                        break;
+                    }
+                    if (seen.get(filmId)) {
+                        continue;
+                    }
+                    seen.set(filmId);
+                    int relevance = relevance(filmId, expansions);
+                    if (relevance > 0) {
+                        ranked[count++] = ((long) (Integer.MAX_VALUE - relevance) << 32) | filmId;
+                    }
+                }
+            }
+        }
+        Arrays.sort(ranked, 0, count);
+
+        // Лайки читаются только у лучших по релевантности: поход в хранилище дороже проверки постингов
+        int reranked = Math.min(count, limit * RERANK_FACTOR);
+        List<Scored> scored = new ArrayList<>(reranked);
+        for (int i = 0; i < reranked; i++) {
+            Film film = filmStorage.findById((int) ranked[i]);
+            if (film != null) {
+                int relevance = Integer.MAX_VALUE - (int) (ranked[i] >>> 32);
+                scored.add(new Scored(film, relevance * (1 + LIKE_BOOST * Math.log1p(film.getLikes().size()))));
+            }
+        }
+        scored.sort(Comparator.comparingDouble(Scored::score).reversed());
+        return scored.stream()
+                .limit(limit)
+                .map(Scored::film)
+                .toList();
+    }
+
+    @EventListener
+    public void onFilmSaved(FilmSavedEvent event) {
+        reindex(event.filmId());
+    }
+
+    // Фильма уже нет в хранилище: reindex снимет все его постинги
+    @EventListener
+    public void onFilmDeleted(FilmDeletedEvent event) {
+        reindex(event.filmId());
+    }
+
+    private record Scored(Film film, double score) {
+    }
+
+    // Сумма лучших весов по словам запроса; 0 — какое-то слово не совпало
+    private static int relevance(int filmId, List<List<Expansion>> expansions) {
+        int relevance = 0;
+        for (List<Expansion> termExpansions : expansions) {
+            int best = 0;
+            for (Expansion expansion : termExpansions) {
+                int weight = expansion.postings().name().contains(filmId)
+                        ? expansion.weight() * NAME_FIELD_WEIGHT
+                        : expansion.postings().description().contains(filmId) ? expansion.weight() : 0;
+                best = Math.max(best, weight);
+            }
+            if (best == 0) {
+                return 0;
+            }
+            relevance += best;
+        }
+        return relevance;
+    }
+
+    private List<Expansion> expand(String term, boolean allowPrefix) {
+        List<Expansion> expansions = new ArrayList<>();
+        Set<String> used = new HashSet<>();
+        Postings exact = postings.get(term);
+        if (exact != null) {
+            expansions.add(new Expansion(exact, EXACT_WEIGHT));
+            used.add(term);
+        }
+        if (allowPrefix && term.length() >= MIN_PREFIX_LENGTH) {
+            for (String word : dictionary.subSet(term, false, term + Character.MAX_VALUE, false)) {
+                if (used.size() > MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                addExpansion(expansions, used, word, PREFIX_WEIGHT);
+            }
+        }
+        if (term.length() >= MIN_TYPO_LENGTH) {
+            for (String candidate : singleEdits(term)) {
+                addExpansion(expansions, used, candidate, TYPO_WEIGHT);
+            }
+        }
+        return expansions;
+    }
+
+    private void addExpansion(List<Expansion> expansions, Set<String> used, String word, int weight) {
+        Postings found = postings.get(word);
+        if (found != null && used.add(word)) {
+            expansions.add(new Expansion(found, weight));
+        }
+    }
+
+    // Все слова на расстоянии одной правки (Дамерау-Левенштейн) над алфавитом индекса
+    private Set<String> singleEdits(String term) {
+        Set<String> edits = new HashSet<>();
+        StringBuilder sb = new StringBuilder(term.length() + 1);
+        for (int i = 0; i < term.length(); i++) {
+            edits.add(sb.append(term, 0, i).append(term, i + 1, term.length()).toString());
+            sb.setLength(0);
+            if (i + 1 < term.length()) {
+                sb.append(term);
+                char c = sb.charAt(i);
+                sb.setCharAt(i, sb.charAt(i + 1));
+                sb.setCharAt(i + 1, c);
+                edits.add(sb.toString());
+                sb.setLength(0);
+            }
+        }
+        for (char letter : alphabet) {
+            for (int i = 0; i <= term.length(); i++) {
+                edits.add(sb.append(term, 0, i).append(letter).append(term, i, term.length()).toString());
+                sb.setLength(0);
+                if (i < term.length() && term.charAt(i) != letter) {
+                    edits.add(sb.append(term, 0, i).append(letter).append(term, i + 1, term.length()).toString());
+                    sb.setLength(0);
+                }
+            }
+        }
+        edits.remove(term);
+        return edits;
+    }
+
+    private void reindex(int filmId) {
+        synchronized (locks[filmId & (LOCK_STRIPES - 1)]) {
+            Film film = filmStorage.findById(filmId);
+            IndexedFilm previous = indexed.get(filmId);
+            Set<String> nameTerms = film == null ? Set.of() : tokenize(film.getName());
+            Set<String> descriptionTerms = film == null ? Set.of() : tokenize(film.getDescription());
+            Set<String> oldName = previous == null ? Set.of() : previous.name();
+            Set<String> oldDescription = previous == null ? Set.of() : previous.description();
+
+            for (String term : oldName) {
+                if (!nameTerms.contains(term)) {
+                    unlink(term, filmId, true);
+                }
+            }
+            for (String term : oldDescription) {
+                if (!descriptionTerms.contains(term)) {
+                    unlink(term, filmId, false);
+                }
+            }
+            for (String term : nameTerms) {
+                if (!oldName.contains(term)) {
+                    link(term, filmId, true);
+                }
+            }
+            for (String term : descriptionTerms) {
+                if (!oldDescription.contains(term)) {
+                    link(term, filmId, false);
+                }
+            }
+            if (film == null) {
+                indexed.remove(filmId);
+            } else {
+                indexed.put(filmId, new IndexedFilm(nameTerms, descriptionTerms));
+            }
+        }
+    }
+
+    // Словарь меняется внутри compute по тому же слову, поэтому не расходится с постингами
+    private void link(String term, int filmId, boolean name) {
+        postings.compute(term, (word, existing) -> {
+            Postings target = existing == null ? new Postings(new IntSet(), new IntSet()) : existing;
+            (name ? target.name() : target.description()).add(filmId);
+            if (existing == null) {
+                dictionary.add(word);
+                for (int i = 0; i < word.length(); i++) {
+                    alphabet.add(word.charAt(i));
+                }
+            }
+            return target;
+        });
+    }
+
+    private void unlink(String term, int filmId, boolean name) {
+        postings.computeIfPresent(term, (word, existing) -> {
+            (name ? existing.name() : existing.description()).remove(filmId);
+            if (existing.isEmpty()) {
+                dictionary.remove(word);
+                return null;
+            }
+            return existing;
+        });
+    }
+
+    static Set<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Set.of();
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                terms.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+}
@@ -1,7 +1,18 @@
 package ru.yandex.practicum.filmorate.service;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.dto.LikeOperation;
+import ru.yandex.practicum.filmorate.dto.LikeOperationResult;
+import ru.yandex.practicum.filmorate.event.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.event.FilmSavedEvent;
+import ru.yandex.practicum.filmorate.event.LikesChangedEvent;
+import ru.yandex.practicum.filmorate.event.UserDeletedEvent;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
@@ -9,26 +20,101 @@ import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
 import java.time.LocalDate;
-import java.util.Comparator;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.function.Consumer;
 
 @Service
-@RequiredArgsConstructor
 public class FilmService {
 
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
+    private final ApplicationEventPublisher events;
     private static final LocalDate CINEMA_BIRTHDAY = LocalDate.of(1895, 12, 28);
+    private static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_LIKE_BATCH_SIZE = 10_000;
+
+    // Метры создаются один раз: на горячем пути нет поиска в реестре
+    private final Timer popularTimer;
+    private final Counter likesAdded;
+    private final Counter likesRemoved;
+
+    public FilmService(FilmStorage filmStorage, UserStorage userStorage, MeterRegistry meterRegistry,
+                       ApplicationEventPublisher events) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.events = events;
+        this.popularTimer = Timer.builder("filmorate.films.popular")
+                .description("Время выборки популярных фильмов")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.likesAdded = Counter.builder("filmorate.likes")
+                .description("Операции с лайками")
+                .tag("op", "add")
+                .register(meterRegistry);
+        this.likesRemoved = Counter.builder("filmorate.likes")
+                .description("Операции с лайками")
+                .tag("op", "remove")
+                .register(meterRegistry);
+        // Размеры считаются только в момент сбора метрик
+        Gauge.builder("filmorate.films", filmStorage, FilmStorage::count)
+                .description("Число фильмов")
+                .register(meterRegistry);
+        Gauge.builder("filmorate.films.likes.avg", filmStorage, FilmService::averageLikes)
+                .description("Среднее число лайков на фильм")
+                .register(meterRegistry);
+    }
 
     public Film createFilm(Film film) {
-        return filmStorage.createFilm(film);
+        Film created = filmStorage.createFilm(film);
+        events.publishEvent(new FilmSavedEvent(created.getId()));
+        return created;
     }
 
     public List<Film> findAll() {
         return filmStorage.findAll();
     }
 
+    // Версия фильмов и лайков: меняется при любом изменении, см. FilmStorage.version()
+    public long version() {
+        return filmStorage.version();
+    }
+
+    // Страница фильмов по курсору: фильмы с ID больше afterId
+    public List<Film> findPage(int afterId, int limit) {
+        if (afterId < 0) {
+            throw new ValidationException("Параметр after не может быть отрицательным.");
+        }
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_PAGE_SIZE + ".");
+        }
+        return filmStorage.findPage(afterId, limit);
+    }
+
+    // Фильмы, вышедшие в диапазоне дат (границы включительно, null — открытая граница)
+    public List<Film> findByReleaseDate(LocalDate from, LocalDate to, int limit) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ValidationException("Параметр releasedFrom не может быть позже releasedTo.");
+        }
+        if (limit <= 0) {
+            throw new ValidationException("Параметр limit должен быть положительным.");
+        }
+        return filmStorage.findByReleaseDate(from, to, limit);
+    }
+
+    // Обход всех фильмов страницами по курсору: в памяти не больше одной страницы,
+    // изменения, сделанные во время обхода, не блокируются
+    public void forEachFilm(Consumer<Film> action) {
+        int afterId = 0;
+        while (true) {
+            List<Film> page = filmStorage.findPage(afterId, MAX_PAGE_SIZE);
+            page.forEach(action);
+            if (page.size() < MAX_PAGE_SIZE) {
+                return;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
     public Film findById(int id) {
         Film film = filmStorage.findById(id);
         if (film == null) {
@@ -37,30 +123,160 @@ public class FilmService {
         return film;
     }
 
-    // Добавить лайк фильму (теперь через Film)
+    // Удалить фильм; лайки уходят вместе с ним, в том числе из обратного индекса
+    public void deleteFilm(int id) {
+        Film film = findById(id);
+        if (!filmStorage.deleteFilm(id)) {
+            throw new NotFoundException("Фильм с id=" + id + " не найден.");
+        }
+        // Сначала лайки, потом удаление: слушатель удаления убирает всё, что осталось по фильму
+        int[] likers = film.getLikes().toIntArray();
+        if (likers.length > 0) {
+            events.publishEvent(new LikesChangedEvent(id, likers, -likers.length));
+        }
+        events.publishEvent(new FilmDeletedEvent(id));
+    }
+
+    // Фильмы, лайкнутые пользователем, по обратному индексу — O(лайков пользователя)
+    public List<Film> getLikedFilms(int userId) {
+        if (userStorage.findById(userId) == null) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        int[] filmIds = filmStorage.findLikedFilmIds(userId);
+        List<Film> liked = new ArrayList<>(filmIds.length);
+        for (int filmId : filmIds) {
+            Film film = filmStorage.findById(filmId);
+            if (film != null) {
+                liked.add(film);
+            }
+        }
+        return liked;
+    }
+
+    // Каскад удаления пользователя: снимаем только его лайки, найденные по обратному индексу
+    @EventListener
+    public void onUserDeleted(UserDeletedEvent event) {
+        int userId = event.userId();
+        for (int filmId : filmStorage.findLikedFilmIds(userId)) {
+            try {
+                if (filmStorage.removeLike(filmId, userId)) {
+                    likesRemoved.increment();
+                    events.publishEvent(new LikesChangedEvent(filmId, new int[]{userId}, -1));
+                }
+            } catch (NotFoundException e) {
+                // Фильм удалён параллельно вместе с лайком
+            }
+        }
+    }
+
+    // Добавить лайк фильму (через хранилище, чтобы обновился индекс популярности)
     public void addLike(int filmId, int userId) {
-        Film film = findById(filmId); // 404 если нет фильма
+        findById(filmId); // 404 если нет фильма
         if (userStorage.findById(userId) == null) {
             throw new NotFoundException("Пользователь не найден");
         }
-        film.addLike(userId);
+        if (filmStorage.addLike(filmId, userId)) {
+            // Пользователя удалили параллельно, и каскад мог пройти раньше нашего лайка
+            if (userStorage.findById(userId) == null) {
+                filmStorage.removeLike(filmId, userId);
+                throw new NotFoundException("Пользователь не найден");
+            }
+            events.publishEvent(new LikesChangedEvent(filmId, new int[]{userId}, 1));
+            likesAdded.increment();
+        }
     }
 
-    // Удалить лайк у фильма (теперь через Film)
+    // Удалить лайк у фильма (через хранилище, чтобы обновился индекс популярности)
     public void removeLike(int filmId, int userId) {
-        Film film = findById(filmId); // 404 если нет фильма
+        findById(filmId); // 404 если нет фильма
         if (userStorage.findById(userId) == null) {
             throw new NotFoundException("Пользователь не найден");
         }
-        film.removeLike(userId);
+        if (filmStorage.removeLike(filmId, userId)) {
+            events.publishEvent(new LikesChangedEvent(filmId, new int[]{userId}, -1));
+            likesRemoved.increment();
+        }
     }
 
-    // Получить популярные фильмы
+    // Пакетное применение лайков: проверка ID пачкой, затем одна операция над каждым фильмом
+    public List<LikeOperationResult> applyLikeBatch(List<LikeOperation> operations) {
+        if (operations.size() > MAX_LIKE_BATCH_SIZE) {
+            throw new ValidationException("Пакет не может содержать больше " + MAX_LIKE_BATCH_SIZE + " операций.");
+        }
+        Set<Integer> filmIds = new HashSet<>();
+        Set<Integer> userIds = new HashSet<>();
+        for (LikeOperation operation : operations) {
+            filmIds.add(operation.getFilmId());
+            userIds.add(operation.getUserId());
+        }
+        Set<Integer> existingFilms = filmStorage.findExistingIds(filmIds);
+        Set<Integer> existingUsers = userStorage.findExistingIds(userIds);
+
+        LikeOperationResult[] results = new LikeOperationResult[operations.size()];
+        // Для каждой пары (фильм, пользователь) важна только последняя операция пакета
+        Map<Integer, Map<Integer, LikeOperation.Type>> lastOpByFilm = new HashMap<>();
+        Map<Integer, List<Integer>> positionsByFilm = new HashMap<>();
+        for (int i = 0; i < results.length; i++) {
+            LikeOperation operation = operations.get(i);
+            if (operation.getOp() == null) {
+                results[i] = LikeOperationResult.failed(operation, "Не указана операция.");
+            } else if (!existingFilms.contains(operation.getFilmId())) {
+                results[i] = LikeOperationResult.failed(operation,
+                        "Фильм с id=" + operation.getFilmId() + " не найден.");
+            } else if (!existingUsers.contains(operation.getUserId())) {
+                results[i] = LikeOperationResult.failed(operation, "Пользователь не найден");
+            } else {
+                results[i] = LikeOperationResult.ok(operation);
+                lastOpByFilm.computeIfAbsent(operation.getFilmId(), id -> new HashMap<>())
+                        .put(operation.getUserId(), operation.getOp());
+                positionsByFilm.computeIfAbsent(operation.getFilmId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+
+        lastOpByFilm.forEach((filmId, lastOps) -> {
+            int[] added = lastOps.entrySet().stream()
+                    .filter(e -> e.getValue() == LikeOperation.Type.ADD)
+                    .mapToInt(Map.Entry::getKey)
+                    .toArray();
+            int[] removed = lastOps.entrySet().stream()
+                    .filter(e -> e.getValue() == LikeOperation.Type.REMOVE)
+                    .mapToInt(Map.Entry::getKey)
+                    .toArray();
+            FilmStorage.LikeChanges changes;
+            try {
+                changes = filmStorage.applyLikes(filmId, added, removed);
+            } catch (NotFoundException e) {
+                // Фильм исчез между проверкой и применением
+                for (int position : positionsByFilm.get(filmId)) {
+                    results[position] = LikeOperationResult.failed(operations.get(position), e.getMessage());
+                }
+                return;
+            }
+            int rolledBack = 0;
+            try {
+                for (int userId : added) {
+                    if (userStorage.findById(userId) == null && filmStorage.removeLike(filmId, userId)) {
+                        rolledBack++; // удалён параллельно, см. addLike
+                    }
+                }
+            } catch (NotFoundException e) {
+                // Фильм удалили уже после применения пачки: лайки ушли вместе с ним
+            }
+            likesAdded.increment(changes.added() - rolledBack);
+            likesRemoved.increment(changes.removed());
+            events.publishEvent(new LikesChangedEvent(filmId, lastOps.keySet().stream()
+                    .mapToInt(Integer::intValue)
+                    .toArray(), changes.delta() - rolledBack));
+        });
+        return Arrays.asList(results);
+    }
+
+    // Получить популярные фильмы из индекса популярности
     public List<Film> getPopularFilms(int count) {
-        return filmStorage.findAll().stream()
-                .sorted(Comparator.comparingInt((Film f) -> f.getLikes().size()).reversed())
-                .limit(count)
-                .collect(Collectors.toList());
+        if (count < 0) {
+            throw new ValidationException("Параметр count не может быть отрицательным.");
+        }
+        return popularTimer.record(() -> filmStorage.findPopular(count));
     }
 
     // Обновление фильма с пользовательской валидацией
@@ -69,7 +285,8 @@ public class FilmService {
             throw new ValidationException("ID фильма обязателен для обновления.");
         }
 
-        Film existingFilm = findById(updatedFilm.getId());
+        // Правим копию: найденный объект могут в это время читать другие запросы
+        Film existingFilm = findById(updatedFilm.getId()).copy();
 
         if (updatedFilm.getName() != null && !updatedFilm.getName().isBlank()) {
             existingFilm.setName(updatedFilm.getName());
@@ -87,6 +304,13 @@ public class FilmService {
             existingFilm.setDuration(updatedFilm.getDuration());
         }
 
-        return filmStorage.updateFilm(existingFilm);
+        Film saved = filmStorage.updateFilm(existingFilm);
+        events.publishEvent(new FilmSavedEvent(saved.getId()));
+        return saved;
+    }
+
+    private static double averageLikes(FilmStorage storage) {
+        int films = storage.count();
+        return films == 0 ? 0 : (double) storage.countLikes() / films;
     }
 }
@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.dto.FriendSuggestion;
+import ru.yandex.practicum.filmorate.event.FriendshipChangedEvent;
+import ru.yandex.practicum.filmorate.event.UsersClearedEvent;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * «Возможно, вы знакомы»: друзья друзей, ранжированные по числу общих друзей.
+ * <p>
+ * Обход ограничен: просматривается не больше maxFriendsScanned друзей пользователя
+ * и не больше maxFriendsOfFriendScanned друзей каждого из них, поэтому пользователи
+ * с огромным числом друзей не раздувают задержку. Рейтинг кэшируется по пользователю
+ * (только ID и счётчики — данные пользователей читаются при ответе) и сбрасывается
+ * только у затронутых пользователей: при изменении дружбы u—v рекомендации меняются
+ * у u, v и их друзей.
+ */
+@Service
+@RequiredArgsConstructor
+public class FriendSuggestionService {
+
+    private final UserStorage userStorage;
+    private final SuggestionProperties properties;
+    private final Map<Integer, Ranking> cache = new ConcurrentHashMap<>();
+    // Растёт при каждом сбросе: рейтинг, посчитанный во время сброса, в кэше не остаётся
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private record Ranking(int[] ids, int[] mutualFriends) {
+    }
+
+    public List<FriendSuggestion> getSuggestions(int userId, int limit) {
+        if (limit <= 0 || limit > properties.getMaxResults()) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + properties.getMaxResults() + ".");
+        }
+        User user = userStorage.findById(userId);
+        if (user == null) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        Ranking ranking = cache.get(userId);
+        if (ranking == null) {
+            long epoch = invalidations.get();
+            ranking = rank(user);
+            cache.put(userId, ranking);
+            if (invalidations.get() != epoch) {
+                cache.remove(userId, ranking);
+            }
+        }
+
+        List<FriendSuggestion> suggestions = new ArrayList<>(Math.min(limit, ranking.ids().length));
+        for (int i = 0; i < ranking.ids().length && suggestions.size() < limit; i++) {
+            User candidate = userStorage.findById(ranking.ids()[i]);
+            if (candidate != null) {
+                suggestions.add(new FriendSuggestion(candidate, ranking.mutualFriends()[i]));
+            }
+        }
+        return suggestions;
+    }
+
+    @EventListener
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        invalidations.incrementAndGet();
+        invalidateNeighborhood(event.userId());
+        invalidateNeighborhood(event.friendId());
+    }
+
+    @EventListener
+    public void onUsersCleared(UsersClearedEvent event) {
+        invalidations.incrementAndGet();
+        cache.clear();
+    }
+
+    private Ranking rank(User user) {
+        IntSet friends = user.getFriends();
+        Map<Integer, Integer> mutualCounts = new HashMap<>();
+        for (int friendId : friends.toIntArray(properties.getMaxFriendsScanned())) {
+            User friend = userStorage.findById(friendId);
+            if (friend == null) {
+                continue;
+            }
+            for (int candidateId : friend.getFriends().toIntArray(properties.getMaxFriendsOfFriendScanned())) {
+                if (candidateId != user.getId() && !friends.contains(candidateId)) {
+                    mutualCounts.merge(candidateId, 1, Integer::sum);
+                }
+            }
+        }
+
+        // Ключ сортировки в одном long: больше общих друзей — раньше, при равенстве — меньший ID
+        long[] keys = new long[mutualCounts.size()];
+        int k = 0;
+        for (Map.Entry<Integer, Integer> entry : mutualCounts.entrySet()) {
+            keys[k++] = ((long) (Integer.MAX_VALUE - entry.getValue()) << 32) | entry.getKey();
+        }
+        Arrays.sort(keys);
+        int size = Math.min(keys.length, properties.getMaxResults());
+        int[] ids = new int[size];
+        int[] counts = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = (int) keys[i];
+            counts[i] = Integer.MAX_VALUE - (int) (keys[i] >>> 32);
+        }
+        return new Ranking(ids, counts);
+    }
+
+    private void invalidateNeighborhood(int userId) {
+        cache.remove(userId);
+        User user = userStorage.findById(userId);
+        if (user == null) {
+            return;
+        }
+        IntSet friends = user.getFriends();
+        // Обходим меньшее из двух: друзей пользователя или записи кэша
+        if (friends.size() > cache.size()) {
+            cache.keySet().removeIf(friends::contains);
+        } else {
+            friends.forEachInt(cache::remove);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.dto.LikeOperation;
+import ru.yandex.practicum.filmorate.dto.LikeOperationResult;
+import ru.yandex.practicum.filmorate.exception.OverloadedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Асинхронный приём лайков (filmorate.likes.async.enabled=true).
+ * <p>
+ * Запрос только записывает желаемое состояние пары (фильм, пользователь) и сразу
+ * получает 202. Повторные операции над парой, ещё не дошедшей до хранилища,
+ * сводятся к последней: лайк и снятие лайка до применения взаимно гасятся. Пары
+ * разбиты по фильмам между потоками-применителями, каждый забирает до max-batch
+ * пар и применяет их через {@link FilmService#applyLikeBatch}: одна проверка
+ * существования ID на пачку и одно изменение хранилища (запись журнала) на фильм.
+ * Фильм всегда обрабатывается одним потоком, поэтому порядок операций над ним сохраняется.
+ * <p>
+ * Обратное давление: несведённых пар не больше queue-capacity; когда места нет,
+ * запрос ждёт enqueue-timeout и получает 503 с Retry-After. Сведение с уже
+ * ожидающей парой места не требует.
+ * <p>
+ * Чтение своих записей: {@link #awaitApplied} ждёт, пока применятся все принятые
+ * операции пользователя, — на нём держится список лайков пользователя. Несуществующие
+ * фильмы и пользователи обнаруживаются только при применении: такие операции
+ * отбрасываются и считаются в метрике filmorate.likes.async{result=dropped}.
+ */
+@Slf4j
+@Service
+public class LikePipeline {
+
+    private final FilmService filmService;
+    private final LikePipelineProperties properties;
+    // Желаемое состояние ещё не применённых пар: ключ — (filmId << 32) | userId
+    private final ConcurrentHashMap<Long, LikeOperation.Type> pending = new ConcurrentHashMap<>();
+    // Сколько пар пользователя ещё не применено; нулевые счётчики удаляются
+    private final ConcurrentHashMap<Integer, Integer> outstandingByUser = new ConcurrentHashMap<>();
+    private final Object applied = new Object();
+    private final Semaphore capacity;
+    private final List<BlockingQueue<Long>> partitions = new ArrayList<>();
+    private final List<Thread> appliers = new ArrayList<>();
+    private volatile boolean running;
+
+    private final Counter coalesced;
+    private final Counter rejected;
+    private final Counter dropped;
+    private final Counter readTimedOut;
+    private final DistributionSummary batchSize;
+
+    public LikePipeline(FilmService filmService, LikePipelineProperties properties, MeterRegistry meterRegistry) {
+        this.filmService = filmService;
+        this.properties = properties;
+        this.capacity = new Semaphore(properties.getQueueCapacity());
+        for (int i = 0; i < Math.max(1, properties.getAppliers()); i++) {
+            partitions.add(new LinkedBlockingQueue<>());
+        }
+        this.coalesced = counter(meterRegistry, "coalesced");
+        this.rejected = counter(meterRegistry, "rejected");
+        this.dropped = counter(meterRegistry, "dropped");
+        this.readTimedOut = counter(meterRegistry, "read-timeout");
+        this.batchSize = DistributionSummary.builder("filmorate.likes.async.batch")
+                .description("Число пар в одном проходе применителя")
+                .register(meterRegistry);
+        Gauge.builder("filmorate.likes.async.pending", pending, ConcurrentHashMap::size)
+                .description("Пары (фильм, пользователь), ожидающие применения")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Запустить потоки-применители.
+     */
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled() || running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < partitions.size(); i++) {
+            BlockingQueue<Long> partition = partitions.get(i);
+            Thread thread = new Thread(() -> applyLoop(partition), "filmorate-likes-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            appliers.add(thread);
+        }
+    }
+
+    /**
+     * Остановить применители, дождавшись применения уже принятых операций.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Thread thread : appliers) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        appliers.clear();
+    }
+
+    /**
+     * Принять операцию с лайком к применению.
+     *
+     * @throws OverloadedException если очередь заполнена дольше enqueue-timeout
+     */
+    public void submit(int filmId, int userId, LikeOperation.Type op) {
+        long key = key(filmId, userId);
+        if (pending.computeIfPresent(key, (k, previous) -> op) != null) {
+            coalesced.increment();
+            return;
+        }
+        try {
+            if (!capacity.tryAcquire(properties.getEnqueueTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                throw new OverloadedException("Очередь лайков заполнена, повторите запрос позже.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OverloadedException("Очередь лайков недоступна.");
+        }
+        if (pending.put(key, op) != null) {
+            // Пару успели поставить параллельно: наша операция уже сведена с ней
+            capacity.release();
+            coalesced.increment();
+            return;
+        }
+        outstandingByUser.merge(userId, 1, Integer::sum);
+        partitions.get(Math.floorMod(filmId, partitions.size())).add(key);
+    }
+
+    /**
+     * Дождаться применения всех принятых операций пользователя.
+     *
+     * @return false если операции не успели примениться за read-your-writes-timeout;
+     * такие случаи считаются в метрике filmorate.likes.async{result=read-timeout}
+     */
+    public boolean awaitApplied(int userId) {
+        if (!outstandingByUser.containsKey(userId)) {
+            return true;
+        }
+        long deadline = System.nanoTime() + properties.getReadYourWritesTimeout().toNanos();
+        synchronized (applied) {
+            while (outstandingByUser.containsKey(userId)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    readTimedOut.increment();
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(applied, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void applyLoop(BlockingQueue<Long> partition) {
+        // Больший проход целиком отклонила бы проверка размера пакета
+        int maxBatch = Math.min(Math.max(1, properties.getMaxBatch()), FilmService.MAX_LIKE_BATCH_SIZE);
+        List<Long> keys = new ArrayList<>(maxBatch);
+        while (running || !partition.isEmpty()) {
+            try {
+                Long first = partition.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                keys.add(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            partition.drainTo(keys, maxBatch - 1);
+            apply(keys);
+            keys.clear();
+        }
+    }
+
+    private void apply(List<Long> keys) {
+        List<LikeOperation> operations = new ArrayList<>(keys.size());
+        for (long key : keys) {
+            // После удаления из pending новая операция над парой встанет в очередь заново
+            LikeOperation.Type op = pending.remove(key);
+            capacity.release();
+            operations.add(new LikeOperation((int) (key >>> 32), (int) key, op));
+        }
+        batchSize.record(operations.size());
+        try {
+            for (LikeOperationResult result : filmService.applyLikeBatch(operations)) {
+                if (!result.isSuccess()) {
+                    dropped.increment();
+                    log.debug("Лайк отброшен: фильм {}, пользователь {}: {}",
+                            result.getFilmId(), result.getUserId(), result.getError());
+                }
+            }
+        } catch (RuntimeException e) {
+            dropped.increment(operations.size());
+            log.error("Не удалось применить пачку из {} лайков", operations.size(), e);
+        } finally {
+            for (LikeOperation operation : operations) {
+                outstandingByUser.computeIfPresent(operation.getUserId(), (id, count) -> count == 1 ? null : count - 1);
+            }
+            synchronized (applied) {
+                applied.notifyAll();
+            }
+        }
+    }
+
+    private static long key(int filmId, int userId) {
+        return ((long) filmId << 32) | (userId & 0xFFFFFFFFL);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("filmorate.likes.async")
+                .description("Асинхронные операции с лайками")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
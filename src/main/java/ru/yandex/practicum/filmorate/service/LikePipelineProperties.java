@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки асинхронного приёма лайков (filmorate.likes.async.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "filmorate.likes.async")
+public class LikePipelineProperties {
+    // false — лайки применяются синхронно в запросе
+    private boolean enabled = false;
+    // Сколько несведённых пар (фильм, пользователь) может ждать применения
+    private int queueCapacity = 100_000;
+    // Число потоков-применителей; фильм всегда обрабатывается одним и тем же
+    private int appliers = 2;
+    // Сколько пар применяется за один проход; больше 10 000 (предел пакета лайков) не берётся
+    private int maxBatch = 1_000;
+    // Сколько запрос ждёт места в заполненной очереди до ответа 503
+    private Duration enqueueTimeout = Duration.ofMillis(50);
+    // Сколько чтение лайков пользователя ждёт применения его же лайков
+    private Duration readYourWritesTimeout = Duration.ofSeconds(1);
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки рекомендаций фильмов (filmorate.recommendations.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "filmorate.recommendations")
+public class RecommendationProperties {
+    // Сколько лайков пользователя учитывать при запросе
+    private int maxLikesScanned = 200;
+    // Верхняя граница параметра limit
+    private int maxResults = 100;
+}
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки рекомендаций друзей (filmorate.suggestions.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "filmorate.suggestions")
+public class SuggestionProperties {
+    // Сколько друзей пользователя просматривать
+    private int maxFriendsScanned = 500;
+    // Сколько друзей каждого друга просматривать
+    private int maxFriendsOfFriendScanned = 500;
+    // Сколько кандидатов хранить в кэше на пользователя (верхняя граница limit)
+    private int maxResults = 100;
+}
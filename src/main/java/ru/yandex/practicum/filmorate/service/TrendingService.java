@@ -0,0 +1,340 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.event.LikesChangedEvent;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.PopularityIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Фильмы, набирающие лайки: рейтинг по приросту лайков за последний час, сутки или неделю.
+ * <p>
+ * У фильма с недавними лайками есть кольцевые счётчики: 60 минутных корзин для часа и
+ * 168 часовых для суток и недели. Лайк прибавляет единицу к текущей корзине и к счёту
+ * каждого окна, снятие лайка — вычитает. При переходе на новую корзину из счёта окна
+ * вычитаются корзины, вышедшие за его границу, — O(корзин) на фильм, без пересчёта истории.
+ * <p>
+ * Для каждого окна рейтинг ведётся инкрементально в {@link PopularityIndex}, как топ
+ * популярных, поэтому запрос трендов стоит столько же, сколько запрос популярных. Корзины
+ * сдвигаются по каждому фильму отдельно, под его монитором: при записи лайка, при чтении
+ * топа (его фильмы сдвигаются до ответа) и фоновым обходом раз в минуту, который проводит
+ * устаревшие счёта через рейтинг и убирает фильмы без лайков за неделю. Общей остановки
+ * на смену корзин нет. Фильмы с неположительным счётом в рейтинг не попадают.
+ */
+@Slf4j
+@Service
+public class TrendingService {
+
+    private static final long ROTATE_PERIOD_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    // Кольца корзин: минутное на час и часовое на неделю
+    private static final long[] BUCKET_MILLIS = {TimeUnit.MINUTES.toMillis(1), TimeUnit.HOURS.toMillis(1)};
+    private static final int[] RING_SIZES = {60, 168};
+    // Сколько раз чтение пересобирает топ, если его фильмы оказались со старыми счетами
+    private static final int MAX_REFRESH_ROUNDS = 3;
+
+    /**
+     * Окно тренда: кольцо корзин и число последних корзин, входящих в окно,
+     * включая текущую неполную.
+     */
+    public enum Window {
+        HOUR("1h", 0, 60),
+        DAY("24h", 1, 24),
+        WEEK("7d", 1, 168);
+
+        private final String param;
+        private final int ring;
+        private final int span;
+
+        Window(String param, int ring, int span) {
+            this.param = param;
+            this.ring = ring;
+            this.span = span;
+        }
+
+        public String getParam() {
+            return param;
+        }
+
+        public static Window fromParam(String param) {
+            for (Window window : values()) {
+                if (window.param.equals(param)) {
+                    return window;
+                }
+            }
+            throw new ValidationException("Параметр window должен быть одним из: 1h, 24h, 7d.");
+        }
+    }
+
+    private static final Window[] WINDOWS = Window.values();
+
+    private final FilmStorage filmStorage;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<Integer, Counters> counters = new ConcurrentHashMap<>();
+    private final PopularityIndex[] rankings = new PopularityIndex[WINDOWS.length];
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public TrendingService(FilmStorage filmStorage) {
+        this(filmStorage, System::currentTimeMillis);
+    }
+
+    TrendingService(FilmStorage filmStorage, LongSupplier clock) {
+        this.filmStorage = filmStorage;
+        this.clock = clock;
+        for (int i = 0; i < rankings.length; i++) {
+            rankings[i] = new PopularityIndex();
+        }
+    }
+
+    /**
+     * Запустить фоновый сдвиг корзин.
+     */
+    @PostConstruct
+    public void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "filmorate-trending");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::rotateSafely,
+                ROTATE_PERIOD_MILLIS, ROTATE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Фильмы с наибольшим приростом лайков за окно.
+     *
+     * @param count максимальное число фильмов
+     * @return фильмы в порядке убывания прироста, при равенстве — по ID
+     */
+    public List<Film> getTrendingFilms(Window window, int count) {
+        if (count < 0) {
+            throw new ValidationException("Параметр count не может быть отрицательным.");
+        }
+        long now = clock.getAsLong();
+        List<Integer> ids = rankings[window.ordinal()].top(count);
+        // Топ мог устареть с последнего фонового обхода: сдвигаем корзины его фильмов
+        // и пересобираем, если чей-то счёт упал
+        for (int round = 1; round < MAX_REFRESH_ROUNDS && refresh(ids, now); round++) {
+            ids = rankings[window.ordinal()].top(count);
+        }
+        List<Film> films = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            Film film = filmStorage.findById(id);
+            if (film != null) {
+                films.add(film);
+            } else {
+                forget(id); // лайк пришёл после удаления фильма
+            }
+        }
+        return films;
+    }
+
+    @EventListener
+    public void onLikesChanged(LikesChangedEvent event) {
+        if (event.delta() != 0) {
+            record(event.filmId(), event.delta(), clock.getAsLong());
+        }
+    }
+
+    @EventListener
+    public void onFilmDeleted(FilmDeletedEvent event) {
+        forget(event.filmId());
+    }
+
+    /**
+     * Сдвинуть корзины всех фильмов на текущее время. Каждый фильм — под своим монитором,
+     * лайки остальных фильмов в это время записываются и читаются.
+     */
+    void rotate() {
+        long now = clock.getAsLong();
+        for (Counters film : counters.values()) {
+            synchronized (film) {
+                if (film.detached) {
+                    continue;
+                }
+                if (film.advance(now)) {
+                    rerank(film);
+                }
+                if (film.isEmpty()) {
+                    // Лайков за неделю нет: счётчики фильма больше не нужны
+                    film.detached = true;
+                    counters.remove(film.filmId, film);
+                }
+            }
+        }
+    }
+
+    private void rotateSafely() {
+        try {
+            rotate();
+        } catch (RuntimeException e) {
+            log.error("Не удалось сдвинуть корзины трендов", e);
+        }
+    }
+
+    private void record(int filmId, int delta, long now) {
+        while (true) {
+            Counters film = counters.computeIfAbsent(filmId, id -> new Counters(id, now));
+            synchronized (film) {
+                // Счётчики могли убрать между поиском и захватом монитора
+                if (film.detached) {
+                    continue;
+                }
+                film.advance(now);
+                film.add(delta);
+                rerank(film);
+                return;
+            }
+        }
+    }
+
+    private void forget(int filmId) {
+        Counters removed = counters.remove(filmId);
+        if (removed != null) {
+            synchronized (removed) {
+                removed.detached = true;
+                for (PopularityIndex ranking : rankings) {
+                    ranking.remove(filmId);
+                }
+            }
+        }
+    }
+
+    private boolean refresh(List<Integer> ids, long now) {
+        boolean changed = false;
+        for (int id : ids) {
+            Counters film = counters.get(id);
+            if (film == null) {
+                continue;
+            }
+            synchronized (film) {
+                if (!film.detached && film.advance(now)) {
+                    rerank(film);
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    // Вызывается под монитором счётчиков фильма
+    private void rerank(Counters film) {
+        for (Window window : WINDOWS) {
+            int score = film.scores[window.ordinal()];
+            if (score > 0) {
+                rankings[window.ordinal()].update(film.filmId, () -> score);
+            } else {
+                rankings[window.ordinal()].remove(film.filmId);
+            }
+        }
+    }
+
+    /**
+     * Кольцевые счётчики одного фильма; все поля — под его монитором.
+     */
+    private static final class Counters {
+        final int filmId;
+        final int[][] rings = new int[RING_SIZES.length][];
+        // Номер последней корзины каждого кольца (время / длительность корзины)
+        final long[] heads = new long[RING_SIZES.length];
+        final int[] scores = new int[WINDOWS.length];
+        // Счётчики убраны из карты: запись должна создать новые
+        boolean detached;
+
+        Counters(int filmId, long now) {
+            this.filmId = filmId;
+            for (int r = 0; r < rings.length; r++) {
+                rings[r] = new int[RING_SIZES[r]];
+                heads[r] = now / BUCKET_MILLIS[r];
+            }
+        }
+
+        void add(int delta) {
+            for (int r = 0; r < rings.length; r++) {
+                rings[r][index(r, heads[r])] += delta;
+            }
+            for (Window window : WINDOWS) {
+                scores[window.ordinal()] += delta;
+            }
+        }
+
+        /**
+         * Перейти на корзины текущего времени.
+         *
+         * @return true если счёт какого-то окна изменился
+         */
+        boolean advance(long now) {
+            boolean changed = false;
+            for (int r = 0; r < rings.length; r++) {
+                long head = heads[r];
+                long target = now / BUCKET_MILLIS[r];
+                if (target <= head) {
+                    continue;
+                }
+                int[] ring = rings[r];
+                for (Window window : WINDOWS) {
+                    if (window.ring != r) {
+                        continue;
+                    }
+                    // Из окна выходят корзины (head - span, target - span]; старше head - span уже вычтены
+                    long last = Math.min(head, target - window.span);
+                    int expired = 0;
+                    for (long slot = head - window.span + 1; slot <= last; slot++) {
+                        expired += ring[index(r, slot)];
+                    }
+                    if (expired != 0) {
+                        scores[window.ordinal()] -= expired;
+                        changed = true;
+                    }
+                }
+                // Корзины новых номеров занимают места самых старых
+                for (long slot = head + 1; slot <= Math.min(target, head + ring.length); slot++) {
+                    ring[index(r, slot)] = 0;
+                }
+                heads[r] = target;
+            }
+            return changed;
+        }
+
+        boolean isEmpty() {
+            for (int[] ring : rings) {
+                for (int count : ring) {
+                    if (count != 0) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private int index(int ring, long slot) {
+            return Math.floorMod(slot, rings[ring].length);
+        }
+    }
+}
@@ -1,33 +1,102 @@
 package ru.yandex.practicum.filmorate.service;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.FriendshipChangedEvent;
+import ru.yandex.practicum.filmorate.event.UserDeletedEvent;
+import ru.yandex.practicum.filmorate.event.UserSavedEvent;
+import ru.yandex.practicum.filmorate.event.UsersClearedEvent;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 @Service
-@RequiredArgsConstructor
 public class UserService {
 
     private final UserStorage userStorage;
+    private final ApplicationEventPublisher events;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int[] NO_IDS = new int[0];
+
+    private final Timer commonFriendsTimer;
+    private final Counter friendsAdded;
+    private final Counter friendsRemoved;
+
+    public UserService(UserStorage userStorage, MeterRegistry meterRegistry, ApplicationEventPublisher events) {
+        this.userStorage = userStorage;
+        this.events = events;
+        this.commonFriendsTimer = Timer.builder("filmorate.users.friends.common")
+                .description("Время поиска общих друзей")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.friendsAdded = Counter.builder("filmorate.friends")
+                .description("Операции с друзьями")
+                .tag("op", "add")
+                .register(meterRegistry);
+        this.friendsRemoved = Counter.builder("filmorate.friends")
+                .description("Операции с друзьями")
+                .tag("op", "remove")
+                .register(meterRegistry);
+        Gauge.builder("filmorate.users", userStorage, UserStorage::count)
+                .description("Число пользователей")
+                .register(meterRegistry);
+    }
 
     public User createUser(User user) {
-        return userStorage.createUser(user);
+        User created = userStorage.createUser(user);
+        events.publishEvent(new UserSavedEvent(created.getId(), NO_IDS));
+        return created;
     }
 
     public User updateUser(User user) {
-        return userStorage.updateUser(user);
+        int[] previousFriends = findFriendIds(user.getId());
+        User saved = userStorage.updateUser(user);
+        events.publishEvent(new UserSavedEvent(saved.getId(), previousFriends));
+        return saved;
     }
 
     public List<User> findAll() {
         return userStorage.findAll();
     }
 
+    // Версия пользователей и дружбы: меняется при любом изменении, см. UserStorage.version()
+    public long version() {
+        return userStorage.version();
+    }
+
+    // Страница пользователей по курсору: пользователи с ID больше afterId
+    public List<User> findPage(int afterId, int limit) {
+        if (afterId < 0) {
+            throw new ValidationException("Параметр after не может быть отрицательным.");
+        }
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_PAGE_SIZE + ".");
+        }
+        return userStorage.findPage(afterId, limit);
+    }
+
+    // Обход всех пользователей страницами по курсору: в памяти не больше одной страницы,
+    // изменения, сделанные во время обхода, не блокируются
+    public void forEachUser(Consumer<User> action) {
+        int afterId = 0;
+        while (true) {
+            List<User> page = userStorage.findPage(afterId, MAX_PAGE_SIZE);
+            page.forEach(action);
+            if (page.size() < MAX_PAGE_SIZE) {
+                return;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
     public User findById(int id) {
         User user = userStorage.findById(id);
         if (user == null) {
@@ -36,47 +105,117 @@ public class UserService {
         return user;
     }
 
+    // Удалить пользователя: сначала сам пользователь, затем вторые стороны его дружб.
+    // Лайки снимает FilmService по событию, через обратный индекс лайков
+    public void deleteUser(int id) {
+        User user = findById(id);
+        if (!userStorage.deleteUser(id)) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        for (int friendId : user.getFriends().toIntArray()) {
+            try {
+                if (userStorage.removeFriend(friendId, id)) {
+                    events.publishEvent(new FriendshipChangedEvent(id, friendId, false));
+                }
+            } catch (NotFoundException e) {
+                // Друг удалён параллельно — снимать нечего
+            }
+        }
+        events.publishEvent(new UserDeletedEvent(id));
+    }
+
     public void deleteAll() {
         userStorage.deleteAll();
+        events.publishEvent(new UsersClearedEvent());
     }
 
-    // Добавить в друзья (через метод модели)
+    // Добавить в друзья (через хранилище, чтобы изменение попало в журнал)
     public void addFriend(int id, int friendId) {
-        User user = findById(id);
-        User friend = findById(friendId);
-
-        user.addFriend(friendId);
-        friend.addFriend(id);
+        findById(id);
+        findById(friendId);
+
+        // Пользователя могут удалить между проверкой и добавлением, а каскад удаления —
+        // пройти раньше, чем добавится наша сторона: тогда дружбу снимаем сами
+        boolean changed;
+        try {
+            changed = userStorage.addFriend(id, friendId);
+            changed |= userStorage.addFriend(friendId, id);
+        } catch (NotFoundException e) {
+            removeFriendSides(id, friendId);
+            throw e;
+        }
+        if (userStorage.findById(id) == null || userStorage.findById(friendId) == null) {
+            removeFriendSides(id, friendId);
+            throw new NotFoundException("Пользователь не найден");
+        }
+        if (changed) {
+            friendsAdded.increment();
+            events.publishEvent(new FriendshipChangedEvent(id, friendId, true));
+        }
     }
 
-    // Удалить из друзей (через метод модели)
+    // Удалить из друзей (через хранилище, чтобы изменение попало в журнал)
     public void removeFriend(int id, int friendId) {
-        User user = findById(id);
-        User friend = findById(friendId);
+        findById(id);
+        findById(friendId);
+
+        boolean changed = userStorage.removeFriend(id, friendId);
+        changed |= userStorage.removeFriend(friendId, id);
+        if (changed) {
+            friendsRemoved.increment();
+            events.publishEvent(new FriendshipChangedEvent(id, friendId, false));
+        }
+    }
+
+    // ID друзей пользователя; пустой массив, если пользователя нет
+    public int[] findFriendIds(int id) {
+        User user = userStorage.findById(id);
+        return user == null ? NO_IDS : user.getFriends().toIntArray();
+    }
 
-        user.removeFriend(friendId);
-        friend.removeFriend(id);
+    private void removeFriendSides(int id, int friendId) {
+        for (int[] side : new int[][]{{id, friendId}, {friendId, id}}) {
+            try {
+                userStorage.removeFriend(side[0], side[1]);
+            } catch (NotFoundException e) {
+                // этой стороны уже нет
+            }
+        }
     }
 
     // Получить список друзей пользователя
     public List<User> getFriends(int id) {
-        User user = findById(id);
-        return user.getFriends().stream()
-                .map(this::findById)
-                .collect(Collectors.toList());
+        List<User> friends = userStorage.findFriends(id);
+        if (friends == null) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        return friends;
     }
 
     // Получить общих друзей двух пользователей
     public List<User> getCommonFriends(int id, int otherId) {
+        return commonFriendsTimer.record(() -> findCommonFriends(id, otherId));
+    }
+
+    // Пересечение отсортированных массивов ID; удалённые пользователи пропускаются
+    private List<User> findCommonFriends(int id, int otherId) {
         User user1 = findById(id);
         User user2 = findById(otherId);
 
-        Set<Integer> commonIds = new HashSet<>(user1.getFriends());
-        commonIds.retainAll(user2.getFriends());
+        int[] commonIds = user1.getFriends().intersect(user2.getFriends());
+        List<User> common = new ArrayList<>(commonIds.length);
+        for (int commonId : commonIds) {
+            User friend = userStorage.findById(commonId);
+            if (friend != null) {
+                common.add(friend);
+            }
+        }
+        return common;
+    }
 
-        return commonIds.stream()
-                .map(this::findById)
-                .collect(Collectors.toList());
+    // Число общих друзей без загрузки пользователей
+    public int countCommonFriends(int id, int otherId) {
+        return findById(id).getFriends().intersectionSize(findById(otherId).getFriends());
     }
 
     // Обновление пользователя с пользовательской валидацией
@@ -85,7 +224,8 @@ public class UserService {
             throw new ValidationException("ID пользователя обязателен для обновления.");
         }
 
-        User existing = findById(updatedUser.getId());
+        // Правим копию: найденный объект могут в это время читать другие запросы
+        User existing = findById(updatedUser.getId()).copy();
 
         if (updatedUser.getEmail() != null) {
             existing.setEmail(updatedUser.getEmail());
@@ -100,6 +240,8 @@ public class UserService {
             existing.setBirthday(updatedUser.getBirthday());
         }
 
-        return existing;
+        User saved = userStorage.updateUser(existing);
+        events.publishEvent(new UserSavedEvent(saved.getId(), saved.getFriends().toIntArray()));
+        return saved;
     }
 }
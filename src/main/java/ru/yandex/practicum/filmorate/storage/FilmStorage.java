@@ -2,7 +2,10 @@ package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface FilmStorage {
     Film createFilm(Film film);
@@ -11,7 +14,103 @@ public interface FilmStorage {
 
     List<Film> findAll();
 
+    /**
+     * Страница фильмов в порядке возрастания ID (keyset-пагинация).
+     *
+     * @param afterId ID последнего фильма предыдущей страницы (0 — с начала)
+     * @param limit   размер страницы
+     */
+    List<Film> findPage(int afterId, int limit);
+
+    /**
+     * Фильмы, вышедшие в диапазоне дат, в порядке даты выхода (при равенстве — по ID).
+     *
+     * @param from  нижняя граница включительно; null — без ограничения
+     * @param to    верхняя граница включительно; null — без ограничения
+     * @param limit максимальное число фильмов
+     */
+    List<Film> findByReleaseDate(LocalDate from, LocalDate to, int limit);
+
     Film findById(int id);
 
+    /**
+     * ID фильмов, лайкнутых пользователем, по обратному индексу — O(лайков пользователя).
+     */
+    int[] findLikedFilmIds(int userId);
+
+    /**
+     * Удалить фильм вместе с его лайками в обратном индексе.
+     *
+     * @return true если фильм был удалён, false если его не было
+     */
+    boolean deleteFilm(int id);
+
+    /**
+     * Проверить существование сразу нескольких ID одним обращением к хранилищу.
+     *
+     * @return подмножество переданных ID, которые есть в хранилище
+     */
+    Set<Integer> findExistingIds(Collection<Integer> ids);
+
     void deleteAll();
+
+    /**
+     * Версия данных: растёт при каждом изменении хранилища и никогда не повторяется
+     * в пределах процесса. Читатель, снявший версию до чтения данных, может отдать её
+     * как ETag: если данные изменятся во время чтения, версия уже будет больше.
+     */
+    long version();
+
+    /**
+     * Число фильмов. Для метрик: может обходить хранилище целиком.
+     */
+    int count();
+
+    /**
+     * Общее число лайков. Для метрик: может обходить хранилище целиком.
+     */
+    long countLikes();
+
+    /**
+     * Добавить лайк и обновить индекс популярности.
+     *
+     * @return true если лайк был добавлен, false если уже был
+     */
+    boolean addLike(int filmId, int userId);
+
+    /**
+     * Удалить лайк и обновить индекс популярности.
+     *
+     * @return true если лайк был удалён, false если его не было
+     */
+    boolean removeLike(int filmId, int userId);
+
+    /**
+     * Самые популярные фильмы по числу лайков.
+     *
+     * @param count максимальное число фильмов
+     */
+    List<Film> findPopular(int count);
+
+    /**
+     * Применить пачку изменений лайков одного фильма с одним обновлением индекса популярности.
+     *
+     * @param filmId       ID фильма
+     * @param addedUserIds пользователи, чьи лайки нужно добавить
+     * @param removedUserIds пользователи, чьи лайки нужно удалить
+     * @return сколько лайков действительно добавлено и удалено
+     */
+    LikeChanges applyLikes(int filmId, int[] addedUserIds, int[] removedUserIds);
+
+    /**
+     * Итог пачки лайков: уже стоявшие лайки и снятие отсутствующих не считаются.
+     */
+    record LikeChanges(int added, int removed) {
+        public static final LikeChanges NONE = new LikeChanges(0, 0);
+
+        // На сколько изменилось число лайков фильма
+        public int delta() {
+            return added - removed;
+        }
+    }
 }
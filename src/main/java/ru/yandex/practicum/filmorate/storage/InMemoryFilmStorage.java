@@ -1,32 +1,121 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.persistence.Journal;
+import ru.yandex.practicum.filmorate.storage.persistence.JournalRecord;
 
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Потокобезопасное хранилище фильмов в памяти.
+ * <p>
+ * Данные лежат в неблокирующей ConcurrentSkipListMap: чтения не берут блокировок
+ * и идут параллельно, итерация слабо согласована и не бросает
+ * ConcurrentModificationException, а записи разных фильмов не мешают друг другу.
+ * <p>
+ * Каждое изменение пишется в {@link Journal}. Изменение фильма и постановка записи
+ * в журнал выполняются под монитором фильма, чтобы порядок в журнале совпадал
+ * с порядком изменений; ожидание fsync — уже после выхода из монитора.
+ * Запись ставится в журнал после изменения в памяти: всё, что в журнале имеет номер
+ * не больше текущего, уже видно читателям — на этом держится согласованность снимков.
+ * Поэтому до изменения хранилище проверяет {@link Journal#awaitWritable()}: закрытый
+ * или сломанный журнал отклоняет изменение раньше, чем его увидят читатели, а пропущенное
+ * изменение уже не отклоняется при постановке в журнал. Если изменение не понадобилось,
+ * резерв возвращается через {@link Journal#releaseWritable()}.
+ */
 @Component
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "memory", matchIfMissing = true)
 public class InMemoryFilmStorage implements FilmStorage {
 
-    private final Map<Integer, Film> films = new HashMap<>();
+    private static final int[] NO_IDS = new int[0];
+
+    private final ConcurrentNavigableMap<Integer, Film> films = new ConcurrentSkipListMap<>();
+    // Число выданных ID; сами ID — firstId, firstId + idStep, ...
     private final AtomicInteger idGenerator = new AtomicInteger();
+    private final int firstId;
+    private final int idStep;
+    private final AtomicLong version = new AtomicLong();
+    private final PopularityIndex popularity = new PopularityIndex();
+    private final ReleaseDateIndex releaseDates = new ReleaseDateIndex();
+    private final UserLikesIndex likesByUser = new UserLikesIndex();
+    private final Journal journal;
+
+    public InMemoryFilmStorage() {
+        this(Journal.NO_OP);
+    }
+
+    @Autowired
+    public InMemoryFilmStorage(Journal journal) {
+        this(journal, 1, 1);
+    }
+
+    /**
+     * Хранилище, выдающее ID вида firstId + k * idStep: шарды
+     * {@link ru.yandex.practicum.filmorate.storage.sharded.ShardedFilmStorage} делят между собой классы вычетов.
+     */
+    public InMemoryFilmStorage(Journal journal, int firstId, int idStep) {
+        this.journal = journal;
+        this.firstId = firstId;
+        this.idStep = idStep;
+    }
 
     @Override
     public Film createFilm(Film film) {
-        film.setId(idGenerator.incrementAndGet());
-        films.put(film.getId(), film);
+        journal.awaitWritable();
+        film.setId(firstId + idStep * idGenerator.getAndIncrement());
+        long seq;
+        // Под монитором: лайки нового фильма попадут в журнал только после записи о нём
+        synchronized (film) {
+            films.put(film.getId(), film);
+            popularity.update(film.getId(), film.getLikes()::size);
+            releaseDates.update(film.getId(), film.getReleaseDate());
+            likesByUser.replace(film.getId(), null, film.getLikes());
+            version.incrementAndGet();
+            seq = journal.append(new JournalRecord.FilmSaved(film));
+        }
+        journal.awaitDurable(seq);
         return film;
     }
 
+    /**
+     * Обновить поля фильма. Лайки меняются только операциями с лайками, как в реляционном
+     * хранилище: поля переданного объекта переносятся в хранимый под его монитором, и
+     * параллельные лайки не теряются.
+     */
     @Override
     public Film updateFilm(Film film) {
-        if (!films.containsKey(film.getId())) {
+        Film stored = films.get(film.getId());
+        if (stored == null) {
             throw new ValidationException("Фильм не найден");
         }
-        films.put(film.getId(), film);
-        return film;
+        long seq;
+        synchronized (stored) {
+            if (films.get(stored.getId()) != stored) {
+                throw new ValidationException("Фильм не найден");
+            }
+            journal.awaitWritable();
+            if (stored != film) {
+                stored.setName(film.getName());
+                stored.setDescription(film.getDescription());
+                stored.setReleaseDate(film.getReleaseDate());
+                stored.setDuration(film.getDuration());
+            }
+            releaseDates.update(stored.getId(), stored.getReleaseDate());
+            version.incrementAndGet();
+            seq = journal.append(new JournalRecord.FilmSaved(stored));
+        }
+        journal.awaitDurable(seq);
+        return stored;
     }
 
     @Override
@@ -34,14 +123,252 @@ public class InMemoryFilmStorage implements FilmStorage {
         return new ArrayList<>(films.values());
     }
 
+    @Override
+    public List<Film> findPage(int afterId, int limit) {
+        // Спуск по skip-list к afterId за O(log N), затем чтение ровно limit записей
+        List<Film> page = new ArrayList<>(limit);
+        for (Film film : films.tailMap(afterId, false).values()) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(film);
+        }
+        return page;
+    }
+
+    @Override
+    public List<Film> findByReleaseDate(LocalDate from, LocalDate to, int limit) {
+        List<Film> result = new ArrayList<>();
+        for (int id : releaseDates.range(from, to, limit)) {
+            Film film = films.get(id);
+            // Дату могли поменять в объекте до обновления индекса: проверяем по самому фильму
+            if (film != null && isWithin(film.getReleaseDate(), from, to)) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
     @Override
     public Film findById(int id) {
         return films.get(id);
     }
 
+    @Override
+    public int[] findLikedFilmIds(int userId) {
+        return likesByUser.filmIds(userId);
+    }
+
+    @Override
+    public boolean deleteFilm(int id) {
+        Film film = films.get(id);
+        if (film == null) {
+            return false;
+        }
+        long seq;
+        synchronized (film) {
+            journal.awaitWritable();
+            if (!films.remove(id, film)) {
+                journal.releaseWritable();
+                return false;
+            }
+            forget(film);
+            seq = journal.append(new JournalRecord.FilmDeleted(id));
+        }
+        journal.awaitDurable(seq);
+        return true;
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        Set<Integer> existing = new HashSet<>();
+        for (Integer id : ids) {
+            if (films.containsKey(id)) {
+                existing.add(id);
+            }
+        }
+        return existing;
+    }
+
     @Override
     public void deleteAll() {
+        journal.awaitWritable();
+        clear();
+        long seq = journal.append(new JournalRecord.FilmsCleared());
+        journal.awaitDurable(seq);
+    }
+
+    @Override
+    public long version() {
+        return version.get();
+    }
+
+    @Override
+    public int count() {
+        return films.size();
+    }
+
+    @Override
+    public long countLikes() {
+        long likes = 0;
+        for (Film film : films.values()) {
+            likes += film.getLikes().size();
+        }
+        return likes;
+    }
+
+    @Override
+    public boolean addLike(int filmId, int userId) {
+        Film film = getExisting(filmId);
+        long seq;
+        synchronized (film) {
+            ensureStored(film);
+            journal.awaitWritable();
+            if (!film.addLike(userId)) {
+                journal.releaseWritable();
+                return false;
+            }
+            popularity.update(filmId, film.getLikes()::size);
+            likesByUser.add(userId, filmId);
+            version.incrementAndGet();
+            seq = journal.append(new JournalRecord.LikesChanged(filmId, new int[]{userId}, NO_IDS));
+        }
+        journal.awaitDurable(seq);
+        return true;
+    }
+
+    @Override
+    public boolean removeLike(int filmId, int userId) {
+        Film film = getExisting(filmId);
+        long seq;
+        synchronized (film) {
+            ensureStored(film);
+            journal.awaitWritable();
+            if (!film.removeLike(userId)) {
+                journal.releaseWritable();
+                return false;
+            }
+            popularity.update(filmId, film.getLikes()::size);
+            likesByUser.remove(userId, filmId);
+            version.incrementAndGet();
+            seq = journal.append(new JournalRecord.LikesChanged(filmId, NO_IDS, new int[]{userId}));
+        }
+        journal.awaitDurable(seq);
+        return true;
+    }
+
+    @Override
+    public LikeChanges applyLikes(int filmId, int[] addedUserIds, int[] removedUserIds) {
+        Film film = getExisting(filmId);
+        long seq;
+        int added;
+        int removed;
+        synchronized (film) {
+            ensureStored(film);
+            journal.awaitWritable();
+            added = film.addLikes(addedUserIds);
+            removed = film.removeLikes(removedUserIds);
+            if (added + removed == 0) {
+                journal.releaseWritable();
+                return LikeChanges.NONE;
+            }
+            popularity.update(filmId, film.getLikes()::size);
+            indexLikes(film, addedUserIds, removedUserIds);
+            version.incrementAndGet();
+            seq = journal.append(new JournalRecord.LikesChanged(filmId, addedUserIds, removedUserIds));
+        }
+        journal.awaitDurable(seq);
+        return new LikeChanges(added, removed);
+    }
+
+    @Override
+    public List<Film> findPopular(int count) {
+        List<Film> result = new ArrayList<>();
+        for (int id : popularity.top(count)) {
+            Film film = films.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    // Восстановление из журнала: без повторной записи в журнал
+
+    public void restoreFilm(Film film) {
+        Film previous = films.put(film.getId(), film);
+        popularity.update(film.getId(), film.getLikes()::size);
+        releaseDates.update(film.getId(), film.getReleaseDate());
+        likesByUser.replace(film.getId(), previous == null ? null : previous.getLikes(), film.getLikes());
+        idGenerator.accumulateAndGet((film.getId() - firstId) / idStep + 1, Math::max);
+        version.incrementAndGet();
+    }
+
+    public void restoreLikes(int filmId, int[] addedUserIds, int[] removedUserIds) {
+        Film film = films.get(filmId);
+        if (film != null) {
+            film.addLikes(addedUserIds);
+            film.removeLikes(removedUserIds);
+            popularity.update(filmId, film.getLikes()::size);
+            indexLikes(film, addedUserIds, removedUserIds);
+            version.incrementAndGet();
+        }
+    }
+
+    public void restoreFilmDeleted(int filmId) {
+        Film film = films.remove(filmId);
+        if (film != null) {
+            forget(film);
+        }
+    }
+
+    public void clear() {
         films.clear();
+        popularity.clear();
+        releaseDates.clear();
+        likesByUser.clear();
         idGenerator.set(0);
+        version.incrementAndGet();
+    }
+
+    private static boolean isWithin(LocalDate date, LocalDate from, LocalDate to) {
+        return date != null && (from == null || !date.isBefore(from)) && (to == null || !date.isAfter(to));
+    }
+
+    // Убрать удалённый фильм из индексов; вызывается под монитором фильма
+    private void forget(Film film) {
+        popularity.remove(film.getId());
+        releaseDates.remove(film.getId());
+        likesByUser.replace(film.getId(), film.getLikes(), null);
+        version.incrementAndGet();
+    }
+
+    // Обратный индекс по итоговому состоянию: повторы и отменённые изменения не оставят лишнего
+    private void indexLikes(Film film, int[] addedUserIds, int[] removedUserIds) {
+        for (int userId : addedUserIds) {
+            if (film.getLikes().contains(userId)) {
+                likesByUser.add(userId, film.getId());
+            }
+        }
+        for (int userId : removedUserIds) {
+            if (!film.getLikes().contains(userId)) {
+                likesByUser.remove(userId, film.getId());
+            }
+        }
+    }
+
+    // Фильм могли удалить, пока ждали его монитор
+    private void ensureStored(Film film) {
+        if (films.get(film.getId()) != film) {
+            throw new NotFoundException("Фильм с id=" + film.getId() + " не найден.");
+        }
+    }
+
+    private Film getExisting(int filmId) {
+        Film film = films.get(filmId);
+        if (film == null) {
+            throw new NotFoundException("Фильм с id=" + filmId + " не найден.");
+        }
+        return film;
     }
 }
@@ -1,35 +1,93 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.persistence.Journal;
+import ru.yandex.practicum.filmorate.storage.persistence.JournalRecord;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Потокобезопасное хранилище пользователей в памяти с журналом изменений
+ * (см. {@link InMemoryFilmStorage}).
+ */
 @Component
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "memory", matchIfMissing = true)
 public class InMemoryUserStorage implements UserStorage {
 
-    private final Map<Integer, User> users = new HashMap<>();
+    private final ConcurrentNavigableMap<Integer, User> users = new ConcurrentSkipListMap<>();
+    // Число выданных ID; сами ID — firstId, firstId + idStep, ...
     private final AtomicInteger idGenerator = new AtomicInteger();
+    private final int firstId;
+    private final int idStep;
+    private final AtomicLong version = new AtomicLong();
+    private final Journal journal;
+
+    public InMemoryUserStorage() {
+        this(Journal.NO_OP);
+    }
+
+    @Autowired
+    public InMemoryUserStorage(Journal journal) {
+        this(journal, 1, 1);
+    }
+
+    /**
+     * Хранилище, выдающее ID вида firstId + k * idStep: шарды
+     * {@link ru.yandex.practicum.filmorate.storage.sharded.ShardedUserStorage} делят между собой классы вычетов.
+     */
+    public InMemoryUserStorage(Journal journal, int firstId, int idStep) {
+        this.journal = journal;
+        this.firstId = firstId;
+        this.idStep = idStep;
+    }
 
     @Override
     public User createUser(User user) {
         if (user.getName() == null || user.getName().isBlank()) {
             user.setName(user.getLogin());
         }
-        user.setId(idGenerator.incrementAndGet());
-        users.put(user.getId(), user);
+        journal.awaitWritable();
+        user.setId(firstId + idStep * idGenerator.getAndIncrement());
+        long seq;
+        synchronized (user) {
+            users.put(user.getId(), user);
+            version.incrementAndGet();
+            seq = journal.append(new JournalRecord.UserSaved(user));
+        }
+        journal.awaitDurable(seq);
         return user;
     }
 
+    /**
+     * Обновить поля пользователя; друзья меняются только операциями дружбы
+     * (см. {@link InMemoryFilmStorage#updateFilm}).
+     */
     @Override
     public User updateUser(User user) {
-        if (!users.containsKey(user.getId())) {
-            throw new NotFoundException("Пользователь не найден");
+        User stored = getExisting(user.getId());
+        long seq;
+        synchronized (stored) {
+            ensureStored(stored);
+            journal.awaitWritable();
+            if (stored != user) {
+                stored.setEmail(user.getEmail());
+                stored.setLogin(user.getLogin());
+                stored.setName(user.getName());
+                stored.setBirthday(user.getBirthday());
+            }
+            version.incrementAndGet();
+            seq = journal.append(new JournalRecord.UserSaved(stored));
         }
-        users.put(user.getId(), user);
-        return user;
+        journal.awaitDurable(seq);
+        return stored;
     }
 
     @Override
@@ -37,19 +95,153 @@ public class InMemoryUserStorage implements UserStorage {
         return new ArrayList<>(users.values());
     }
 
+    @Override
+    public List<User> findPage(int afterId, int limit) {
+        // Спуск по skip-list к afterId за O(log N), затем чтение ровно limit записей
+        List<User> page = new ArrayList<>(limit);
+        for (User user : users.tailMap(afterId, false).values()) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(user);
+        }
+        return page;
+    }
+
     @Override
     public User findById(int id) {
+        return users.get(id);
+    }
+
+    @Override
+    public boolean deleteUser(int id) {
         User user = users.get(id);
         if (user == null) {
-            throw new NotFoundException("Пользователь не найден");
+            return false;
         }
-        return user;
+        long seq;
+        synchronized (user) {
+            journal.awaitWritable();
+            if (!users.remove(id, user)) {
+                journal.releaseWritable();
+                return false;
+            }
+            version.incrementAndGet();
+            seq = journal.append(new JournalRecord.UserDeleted(id));
+        }
+        journal.awaitDurable(seq);
+        return true;
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        Set<Integer> existing = new HashSet<>();
+        for (Integer id : ids) {
+            if (users.containsKey(id)) {
+                existing.add(id);
+            }
+        }
+        return existing;
     }
 
     @Override
     public void deleteAll() {
+        journal.awaitWritable();
+        clear();
+        long seq = journal.append(new JournalRecord.UsersCleared());
+        journal.awaitDurable(seq);
+    }
+
+    @Override
+    public long version() {
+        return version.get();
+    }
+
+    @Override
+    public int count() {
+        return users.size();
+    }
+
+    @Override
+    public boolean addFriend(int userId, int friendId) {
+        User user = getExisting(userId);
+        long seq;
+        synchronized (user) {
+            ensureStored(user);
+            journal.awaitWritable();
+            if (!user.addFriend(friendId)) {
+                journal.releaseWritable();
+                return false;
+            }
+            version.incrementAndGet();
+            seq = journal.append(new JournalRecord.FriendChanged(userId, friendId, true));
+        }
+        journal.awaitDurable(seq);
+        return true;
+    }
+
+    @Override
+    public boolean removeFriend(int userId, int friendId) {
+        User user = getExisting(userId);
+        long seq;
+        synchronized (user) {
+            ensureStored(user);
+            journal.awaitWritable();
+            if (!user.removeFriend(friendId)) {
+                journal.releaseWritable();
+                return false;
+            }
+            version.incrementAndGet();
+            seq = journal.append(new JournalRecord.FriendChanged(userId, friendId, false));
+        }
+        journal.awaitDurable(seq);
+        return true;
+    }
+
+    // Восстановление из журнала: без повторной записи в журнал
+
+    public void restoreUser(User user) {
+        users.put(user.getId(), user);
+        idGenerator.accumulateAndGet((user.getId() - firstId) / idStep + 1, Math::max);
+        version.incrementAndGet();
+    }
+
+    public void restoreUserDeleted(int userId) {
+        if (users.remove(userId) != null) {
+            version.incrementAndGet();
+        }
+    }
+
+    public void restoreFriend(int userId, int friendId, boolean added) {
+        User user = users.get(userId);
+        if (user != null) {
+            if (added) {
+                user.addFriend(friendId);
+            } else {
+                user.removeFriend(friendId);
+            }
+            version.incrementAndGet();
+        }
+    }
+
+    public void clear() {
         users.clear();
         idGenerator.set(0);
+        version.incrementAndGet();
     }
-}
 
+    private User getExisting(int userId) {
+        User user = users.get(userId);
+        if (user == null) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        return user;
+    }
+
+    // Пользователя могли удалить, пока ждали его монитор
+    private void ensureStored(User user) {
+        if (users.get(user.getId()) != user) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+    }
+}
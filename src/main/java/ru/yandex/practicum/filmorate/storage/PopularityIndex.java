@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.IntSupplier;
+
+/**
+ * Индекс популярности фильмов.
+ * <p>
+ * Фильмы упорядочены по числу лайков (по убыванию), при равенстве — по id.
+ * Индекс обновляется инкрементально при каждом изменении лайков, поэтому
+ * топ-K читается за O(K) без копирования и сортировки всего каталога.
+ */
+public class PopularityIndex {
+
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>();
+    private final ConcurrentHashMap<Integer, Integer> likeCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Обновить число лайков фильма.
+     * Обновления одного фильма сериализуются блокировкой корзины ConcurrentHashMap,
+     * обновления разных фильмов идут параллельно. Число лайков читается уже внутри
+     * этой блокировки, поэтому последнее из параллельных обновлений всегда видит
+     * актуальное значение и индекс не отстаёт от множества лайков.
+     *
+     * @param filmId ID фильма
+     * @param likesCount источник текущего числа лайков
+     */
+    public void update(int filmId, IntSupplier likesCount) {
+        likeCounts.compute(filmId, (id, old) -> {
+            int likes = likesCount.getAsInt();
+            // Сначала вставляем новую позицию, потом удаляем старую:
+            // параллельный читатель может увидеть фильм дважды, но не потеряет его
+            ranking.add(new Entry(likes, id));
+            if (old != null && old != likes) {
+                ranking.remove(new Entry(old, id));
+            }
+            return likes;
+        });
+    }
+
+    /**
+     * Удалить фильм из индекса.
+     *
+     * @param filmId ID фильма
+     */
+    public void remove(int filmId) {
+        likeCounts.computeIfPresent(filmId, (id, old) -> {
+            ranking.remove(new Entry(old, id));
+            return null;
+        });
+    }
+
+    /**
+     * Получить ID самых популярных фильмов.
+     *
+     * @param count максимальное число фильмов
+     * @return ID фильмов в порядке убывания популярности
+     */
+    public List<Integer> top(int count) {
+        List<Integer> result = new ArrayList<>(Math.min(count, likeCounts.size()));
+        Set<Integer> seen = new HashSet<>();
+        for (Entry entry : ranking) {
+            if (result.size() >= count) {
+                break;
+            }
+            if (seen.add(entry.filmId())) {
+                result.add(entry.filmId());
+            }
+        }
+        return result;
+    }
+
+    public void clear() {
+        likeCounts.clear();
+        ranking.clear();
+    }
+
+    private record Entry(int likes, int filmId) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int byLikes = Integer.compare(other.likes, likes);
+            return byLikes != 0 ? byLikes : Integer.compare(filmId, other.filmId);
+        }
+    }
+}
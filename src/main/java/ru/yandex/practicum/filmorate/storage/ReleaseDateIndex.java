@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Индекс фильмов по дате выхода.
+ * <p>
+ * Ключ — одно число long: день эпохи в старших 32 битах, ID фильма в младших,
+ * поэтому ключи упорядочены по дате, а при равенстве — по ID, и не требуют объектов-обёрток
+ * сверх Long. Выборка диапазона — спуск к нижней границе за O(log N) и чтение ровно
+ * тех ключей, что попали в диапазон: стоимость зависит от размера ответа, а не каталога.
+ */
+public class ReleaseDateIndex {
+
+    private final ConcurrentSkipListSet<Long> byDate = new ConcurrentSkipListSet<>();
+    private final ConcurrentHashMap<Integer, Long> keys = new ConcurrentHashMap<>();
+
+    /**
+     * Обновить дату выхода фильма. Обновления одного фильма сериализуются
+     * блокировкой корзины ConcurrentHashMap, как в {@link PopularityIndex}.
+     *
+     * @param filmId      ID фильма
+     * @param releaseDate дата выхода; null — фильм не индексируется
+     */
+    public void update(int filmId, LocalDate releaseDate) {
+        if (releaseDate == null) {
+            remove(filmId);
+            return;
+        }
+        long key = key(releaseDate.toEpochDay(), filmId);
+        keys.compute(filmId, (id, old) -> {
+            // Сначала новая позиция, потом удаление старой: читатель не потеряет фильм
+            byDate.add(key);
+            if (old != null && old != key) {
+                byDate.remove(old);
+            }
+            return key;
+        });
+    }
+
+    /**
+     * Удалить фильм из индекса.
+     *
+     * @param filmId ID фильма
+     */
+    public void remove(int filmId) {
+        keys.computeIfPresent(filmId, (id, old) -> {
+            byDate.remove(old);
+            return null;
+        });
+    }
+
+    /**
+     * ID фильмов, вышедших в диапазоне дат, в порядке даты выхода.
+     *
+     * @param from нижняя граница включительно; null — без ограничения
+     * @param to   верхняя граница включительно; null — без ограничения
+     * @param limit максимальное число фильмов
+     */
+    public List<Integer> range(LocalDate from, LocalDate to, int limit) {
+        long fromKey = from == null ? Long.MIN_VALUE : key(from.toEpochDay(), 0);
+        long toKey = to == null ? Long.MAX_VALUE : key(to.toEpochDay(), -1);
+        List<Integer> result = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        for (long key : byDate.subSet(fromKey, true, toKey, true)) {
+            if (result.size() >= limit) {
+                break;
+            }
+            int filmId = (int) key;
+            if (seen.add(filmId)) {
+                result.add(filmId);
+            }
+        }
+        return result;
+    }
+
+    public void clear() {
+        keys.clear();
+        byDate.clear();
+    }
+
+    // ID в младших битах без знака: ключи одного дня идут по возрастанию ID
+    private static long key(long epochDay, int filmId) {
+        return epochDay << 32 | Integer.toUnsignedLong(filmId);
+    }
+}
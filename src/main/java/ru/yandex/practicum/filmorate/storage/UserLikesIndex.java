@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Обратный индекс лайков: пользователь -> ID фильмов, которые он лайкнул.
+ * <p>
+ * Прямое направление (фильм -> пользователи) хранится в самих фильмах; этот индекс
+ * позволяет получить лайки пользователя и снять их при его удалении за O(лайков),
+ * без обхода всего каталога. Изменения одного пользователя сериализуются блокировкой
+ * корзины ConcurrentHashMap, пустые множества удаляются из индекса там же.
+ */
+public class UserLikesIndex {
+
+    private static final int[] NO_IDS = new int[0];
+
+    private final ConcurrentHashMap<Integer, IntSet> filmsByUser = new ConcurrentHashMap<>();
+
+    public void add(int userId, int filmId) {
+        filmsByUser.compute(userId, (id, films) -> {
+            IntSet target = films == null ? new IntSet() : films;
+            target.add(filmId);
+            return target;
+        });
+    }
+
+    public void remove(int userId, int filmId) {
+        filmsByUser.computeIfPresent(userId, (id, films) -> {
+            films.remove(filmId);
+            return films.isEmpty() ? null : films;
+        });
+    }
+
+    /**
+     * Привести индекс к новому множеству лайков фильма.
+     *
+     * @param before пользователи, учтённые в индексе для этого фильма
+     * @param after  пользователи, лайкнувшие фильм сейчас
+     */
+    public void replace(int filmId, IntSet before, IntSet after) {
+        if (before != null) {
+            before.forEachInt(userId -> {
+                if (after == null || !after.contains(userId)) {
+                    remove(userId, filmId);
+                }
+            });
+        }
+        if (after != null) {
+            after.forEachInt(userId -> add(userId, filmId));
+        }
+    }
+
+    /**
+     * ID фильмов, лайкнутых пользователем, в порядке возрастания.
+     */
+    public int[] filmIds(int userId) {
+        IntSet films = filmsByUser.get(userId);
+        return films == null ? NO_IDS : films.toIntArray();
+    }
+
+    public void clear() {
+        filmsByUser.clear();
+    }
+}
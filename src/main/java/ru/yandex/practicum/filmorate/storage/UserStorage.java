@@ -2,7 +2,10 @@ package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface UserStorage {
     User createUser(User user);
@@ -11,7 +14,77 @@ public interface UserStorage {
 
     List<User> findAll();
 
+    /**
+     * Страница пользователей в порядке возрастания ID (keyset-пагинация).
+     *
+     * @param afterId ID последнего пользователя предыдущей страницы (0 — с начала)
+     * @param limit   размер страницы
+     */
+    List<User> findPage(int afterId, int limit);
+
     User findById(int id);
 
+    /**
+     * Друзья пользователя в порядке возрастания ID; удалённые друзья пропускаются.
+     * Хранилище со снимками отдаёт пользователя и друзей в состоянии на один момент.
+     *
+     * @return null если пользователя нет
+     */
+    default List<User> findFriends(int userId) {
+        User user = findById(userId);
+        if (user == null) {
+            return null;
+        }
+        List<User> friends = new ArrayList<>();
+        for (int friendId : user.getFriends().toIntArray()) {
+            User friend = findById(friendId);
+            if (friend != null) {
+                friends.add(friend);
+            }
+        }
+        return friends;
+    }
+
+    /**
+     * Удалить пользователя. Его лайки и дружбы снимает сервис: у хранилища нет
+     * доступа к фильмам, а вторые стороны дружб — это другие пользователи.
+     *
+     * @return true если пользователь был удалён, false если его не было
+     */
+    boolean deleteUser(int id);
+
+    /**
+     * Проверить существование сразу нескольких ID одним обращением к хранилищу.
+     *
+     * @return подмножество переданных ID, которые есть в хранилище
+     */
+    Set<Integer> findExistingIds(Collection<Integer> ids);
+
     void deleteAll();
+
+    /**
+     * Версия данных: растёт при каждом изменении хранилища и никогда не повторяется
+     * в пределах процесса. Читатель, снявший версию до чтения данных, может отдать её
+     * как ETag: если данные изменятся во время чтения, версия уже будет больше.
+     */
+    long version();
+
+    /**
+     * Число пользователей. Для метрик: может обходить хранилище целиком.
+     */
+    int count();
+
+    /**
+     * Добавить друга пользователю (одна сторона дружбы).
+     *
+     * @return true если друг был добавлен, false если уже был
+     */
+    boolean addFriend(int userId, int friendId);
+
+    /**
+     * Удалить друга у пользователя (одна сторона дружбы).
+     *
+     * @return true если друг был удалён, false если его не было
+     */
+    boolean removeFriend(int userId, int friendId);
 }
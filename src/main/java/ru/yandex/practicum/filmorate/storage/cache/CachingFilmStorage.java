@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Кэширующая обёртка над любым {@link FilmStorage}: findById читает через кэш,
+ * остальные чтения идут в хранилище.
+ * <p>
+ * Каждая запись сначала выполняется в хранилище, затем сбрасывает фильм в кэше
+ * (в finally — объект мог быть изменён вызывающим до неудачной записи). Загрузка
+ * промаха идёт внутри вычисления Caffeine по ключу, а сброс того же ключа ждёт
+ * его окончания, поэтому значение, прочитанное до записи, не переживёт сброса.
+ */
+public class CachingFilmStorage implements FilmStorage {
+
+    private final FilmStorage delegate;
+    private final Cache<Integer, Film> films;
+
+    public CachingFilmStorage(FilmStorage delegate, int maxSize, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.films = StorageCaches.create("films", maxSize, meterRegistry);
+    }
+
+    @Override
+    public Film createFilm(Film film) {
+        return delegate.createFilm(film);
+    }
+
+    @Override
+    public Film updateFilm(Film film) {
+        try {
+            return delegate.updateFilm(film);
+        } finally {
+            films.invalidate(film.getId());
+        }
+    }
+
+    @Override
+    public List<Film> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Film> findPage(int afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public List<Film> findByReleaseDate(LocalDate from, LocalDate to, int limit) {
+        return delegate.findByReleaseDate(from, to, limit);
+    }
+
+    @Override
+    public Film findById(int id) {
+        return films.get(id, delegate::findById);
+    }
+
+    @Override
+    public int[] findLikedFilmIds(int userId) {
+        return delegate.findLikedFilmIds(userId);
+    }
+
+    @Override
+    public boolean deleteFilm(int id) {
+        try {
+            return delegate.deleteFilm(id);
+        } finally {
+            films.invalidate(id);
+        }
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        return StorageCaches.findExistingIds(films, ids, delegate::findExistingIds);
+    }
+
+    @Override
+    public void deleteAll() {
+        try {
+            delegate.deleteAll();
+        } finally {
+            films.invalidateAll();
+        }
+    }
+
+    @Override
+    public long version() {
+        return delegate.version();
+    }
+
+    @Override
+    public int count() {
+        return delegate.count();
+    }
+
+    @Override
+    public long countLikes() {
+        return delegate.countLikes();
+    }
+
+    @Override
+    public boolean addLike(int filmId, int userId) {
+        try {
+            return delegate.addLike(filmId, userId);
+        } finally {
+            films.invalidate(filmId);
+        }
+    }
+
+    @Override
+    public boolean removeLike(int filmId, int userId) {
+        try {
+            return delegate.removeLike(filmId, userId);
+        } finally {
+            films.invalidate(filmId);
+        }
+    }
+
+    @Override
+    public List<Film> findPopular(int count) {
+        return delegate.findPopular(count);
+    }
+
+    @Override
+    public LikeChanges applyLikes(int filmId, int[] addedUserIds, int[] removedUserIds) {
+        try {
+            return delegate.applyLikes(filmId, addedUserIds, removedUserIds);
+        } finally {
+            films.invalidate(filmId);
+        }
+    }
+}
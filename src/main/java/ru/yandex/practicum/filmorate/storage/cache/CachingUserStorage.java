@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Кэширующая обёртка над любым {@link UserStorage} (см. {@link CachingFilmStorage}).
+ * Дружба меняет только пользователя, у которого меняется список друзей.
+ */
+public class CachingUserStorage implements UserStorage {
+
+    private final UserStorage delegate;
+    private final Cache<Integer, User> users;
+
+    public CachingUserStorage(UserStorage delegate, int maxSize, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.users = StorageCaches.create("users", maxSize, meterRegistry);
+    }
+
+    @Override
+    public User createUser(User user) {
+        return delegate.createUser(user);
+    }
+
+    @Override
+    public User updateUser(User user) {
+        try {
+            return delegate.updateUser(user);
+        } finally {
+            users.invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<User> findPage(int afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public User findById(int id) {
+        return users.get(id, delegate::findById);
+    }
+
+    @Override
+    public boolean deleteUser(int id) {
+        try {
+            return delegate.deleteUser(id);
+        } finally {
+            users.invalidate(id);
+        }
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        return StorageCaches.findExistingIds(users, ids, delegate::findExistingIds);
+    }
+
+    @Override
+    public void deleteAll() {
+        try {
+            delegate.deleteAll();
+        } finally {
+            users.invalidateAll();
+        }
+    }
+
+    @Override
+    public long version() {
+        return delegate.version();
+    }
+
+    @Override
+    public int count() {
+        return delegate.count();
+    }
+
+    @Override
+    public boolean addFriend(int userId, int friendId) {
+        try {
+            return delegate.addFriend(userId, friendId);
+        } finally {
+            users.invalidate(userId);
+        }
+    }
+
+    @Override
+    public boolean removeFriend(int userId, int friendId) {
+        try {
+            return delegate.removeFriend(userId, friendId);
+        } finally {
+            users.invalidate(userId);
+        }
+    }
+}
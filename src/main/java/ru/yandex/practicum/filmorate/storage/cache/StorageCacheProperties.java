@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки кэша фильмов и пользователей поверх хранилища (filmorate.storage.cache.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "filmorate.storage.cache")
+public class StorageCacheProperties {
+    // Сколько фильмов и сколько пользователей держать в кэше; 0 — кэш выключен
+    private int maxFilms = 10_000;
+    private int maxUsers = 10_000;
+}
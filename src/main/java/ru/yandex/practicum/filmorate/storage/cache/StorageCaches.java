@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Общие приёмы кэширующих хранилищ.
+ */
+final class StorageCaches {
+
+    private StorageCaches() {
+    }
+
+    /**
+     * Ограниченный кэш с вытеснением W-TinyLFU и статистикой, выгружаемой в метрики
+     * cache.gets{cache=name,result=hit|miss}, cache.evictions, cache.size.
+     */
+    static <V> Cache<Integer, V> create(String name, int maxSize, MeterRegistry meterRegistry) {
+        Cache<Integer, V> cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        return cache;
+    }
+
+    /**
+     * Существующие ID: закэшированные берутся из памяти, остальные проверяются
+     * одним обращением к хранилищу.
+     */
+    static Set<Integer> findExistingIds(Cache<Integer, ?> cache, Collection<Integer> ids,
+                                        Function<Collection<Integer>, Set<Integer>> delegate) {
+        Set<Integer> existing = new HashSet<>();
+        Set<Integer> unknown = new HashSet<>();
+        for (Integer id : ids) {
+            if (cache.getIfPresent(id) != null) {
+                existing.add(id);
+            } else {
+                unknown.add(id);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            existing.addAll(delegate.apply(unknown));
+        }
+        return existing;
+    }
+}
@@ -0,0 +1,297 @@
+package ru.yandex.practicum.filmorate.storage.jdbc;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Хранилище фильмов во встроенной H2 (filmorate.storage.type=h2).
+ * <p>
+ * Лайки лежат в отдельной таблице, а их число денормализовано в films.likes_count
+ * и меняется в той же транзакции: популярные фильмы читаются по индексу
+ * (likes_count DESC, id) без сортировки в приложении. Изменения лайков одного фильма
+ * сериализуются блокировкой его строки (SELECT ... FOR UPDATE); пачки лайков
+ * и лайки нового фильма пишутся пакетами JDBC.
+ * <p>
+ * В отличие от хранилища в памяти, updateFilm меняет только поля фильма: объект
+ * мог быть прочитан до параллельного лайка, и его множество лайков уже устарело.
+ */
+public class JdbcFilmStorage implements FilmStorage {
+
+    private static final String COLUMNS = "id, name, description, release_date, duration";
+    private static final String INSERT_LIKE = "INSERT INTO likes (film_id, user_id) SELECT ?, ? "
+            + "WHERE NOT EXISTS (SELECT 1 FROM likes WHERE film_id = ? AND user_id = ?)";
+    private static final String DELETE_LIKE = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
+
+    private static final RowMapper<Film> FILM_MAPPER = (rs, rowNum) -> {
+        Film film = new Film();
+        film.setId(rs.getInt("id"));
+        film.setName(rs.getString("name"));
+        film.setDescription(rs.getString("description"));
+        Date releaseDate = rs.getDate("release_date");
+        film.setReleaseDate(releaseDate == null ? null : releaseDate.toLocalDate());
+        film.setDuration(rs.getInt("duration"));
+        return film;
+    };
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+    private final AtomicLong version = new AtomicLong();
+
+    public JdbcFilmStorage(JdbcTemplate jdbc, TransactionTemplate transactions) {
+        this.jdbc = jdbc;
+        this.transactions = transactions;
+    }
+
+    @Override
+    public Film createFilm(Film film) {
+        int[] likes = film.getLikes().toIntArray();
+        transactions.executeWithoutResult(status -> {
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbc.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement("INSERT INTO films "
+                                + "(name, description, release_date, duration, likes_count) VALUES (?, ?, ?, ?, ?)",
+                        Statement.RETURN_GENERATED_KEYS);
+                statement.setString(1, film.getName());
+                statement.setString(2, film.getDescription());
+                statement.setObject(3, film.getReleaseDate());
+                statement.setInt(4, film.getDuration());
+                statement.setInt(5, likes.length);
+                return statement;
+            }, keys);
+            film.setId(Objects.requireNonNull(keys.getKey()).intValue());
+            batch("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", pairs(film.getId(), likes));
+        });
+        version.incrementAndGet();
+        return film;
+    }
+
+    @Override
+    public Film updateFilm(Film film) {
+        int updated = jdbc.update("UPDATE films SET name = ?, description = ?, release_date = ?, duration = ? "
+                        + "WHERE id = ?", film.getName(), film.getDescription(), film.getReleaseDate(),
+                film.getDuration(), film.getId());
+        if (updated == 0) {
+            throw new ValidationException("Фильм не найден");
+        }
+        version.incrementAndGet();
+        return film;
+    }
+
+    @Override
+    public List<Film> findAll() {
+        List<Film> films = jdbc.query("SELECT " + COLUMNS + " FROM films ORDER BY id", FILM_MAPPER);
+        Map<Integer, Film> byId = byId(films);
+        jdbc.query("SELECT film_id, user_id FROM likes ORDER BY film_id, user_id", rs -> {
+            Film film = byId.get(rs.getInt(1));
+            if (film != null) {
+                film.addLike(rs.getInt(2));
+            }
+        });
+        return films;
+    }
+
+    @Override
+    public List<Film> findPage(int afterId, int limit) {
+        return withLikes(jdbc.query("SELECT " + COLUMNS + " FROM films WHERE id > ? ORDER BY id LIMIT ?",
+                FILM_MAPPER, afterId, limit));
+    }
+
+    @Override
+    public List<Film> findByReleaseDate(LocalDate from, LocalDate to, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM films WHERE release_date IS NOT NULL");
+        List<Object> args = new ArrayList<>(3);
+        if (from != null) {
+            sql.append(" AND release_date >= ?");
+            args.add(from);
+        }
+        if (to != null) {
+            sql.append(" AND release_date <= ?");
+            args.add(to);
+        }
+        sql.append(" ORDER BY release_date, id LIMIT ?");
+        args.add(limit);
+        return withLikes(jdbc.query(sql.toString(), FILM_MAPPER, args.toArray()));
+    }
+
+    @Override
+    public Film findById(int id) {
+        List<Film> films = withLikes(jdbc.query("SELECT " + COLUMNS + " FROM films WHERE id = ?", FILM_MAPPER, id));
+        return films.isEmpty() ? null : films.get(0);
+    }
+
+    @Override
+    public int[] findLikedFilmIds(int userId) {
+        return jdbc.queryForList("SELECT film_id FROM likes WHERE user_id = ? ORDER BY film_id", Integer.class, userId)
+                .stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Override
+    public boolean deleteFilm(int id) {
+        // Лайки удаляются каскадом внешнего ключа
+        if (jdbc.update("DELETE FROM films WHERE id = ?", id) == 0) {
+            return false;
+        }
+        version.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(jdbc.queryForList("SELECT id FROM films WHERE id = ANY(?)", Integer.class,
+                (Object) ids.toArray(Integer[]::new)));
+    }
+
+    @Override
+    public void deleteAll() {
+        jdbc.update("DELETE FROM films");
+        // Как и в памяти, нумерация начинается заново
+        jdbc.execute("ALTER TABLE films ALTER COLUMN id RESTART WITH 1");
+        version.incrementAndGet();
+    }
+
+    @Override
+    public long version() {
+        return version.get();
+    }
+
+    @Override
+    public int count() {
+        return Objects.requireNonNull(jdbc.queryForObject("SELECT COUNT(*) FROM films", Integer.class));
+    }
+
+    @Override
+    public long countLikes() {
+        return Objects.requireNonNull(jdbc.queryForObject("SELECT COUNT(*) FROM likes", Long.class));
+    }
+
+    @Override
+    public boolean addLike(int filmId, int userId) {
+        boolean added = Boolean.TRUE.equals(transactions.execute(status -> {
+            lockFilm(filmId);
+            if (jdbc.update(INSERT_LIKE, filmId, userId, filmId, userId) == 0) {
+                return false;
+            }
+            jdbc.update("UPDATE films SET likes_count = likes_count + 1 WHERE id = ?", filmId);
+            return true;
+        }));
+        if (added) {
+            version.incrementAndGet();
+        }
+        return added;
+    }
+
+    @Override
+    public boolean removeLike(int filmId, int userId) {
+        boolean removed = Boolean.TRUE.equals(transactions.execute(status -> {
+            lockFilm(filmId);
+            if (jdbc.update(DELETE_LIKE, filmId, userId) == 0) {
+                return false;
+            }
+            jdbc.update("UPDATE films SET likes_count = likes_count - 1 WHERE id = ?", filmId);
+            return true;
+        }));
+        if (removed) {
+            version.incrementAndGet();
+        }
+        return removed;
+    }
+
+    @Override
+    public LikeChanges applyLikes(int filmId, int[] addedUserIds, int[] removedUserIds) {
+        LikeChanges changes = transactions.execute(status -> {
+            lockFilm(filmId);
+            // Сначала добавления, потом удаления — как в хранилище в памяти
+            int added = batch(INSERT_LIKE, likePairs(filmId, addedUserIds));
+            int removed = batch(DELETE_LIKE, pairs(filmId, removedUserIds));
+            if (added == 0 && removed == 0) {
+                return null;
+            }
+            jdbc.update("UPDATE films SET likes_count = likes_count + ? WHERE id = ?", added - removed, filmId);
+            return new LikeChanges(added, removed);
+        });
+        if (changes == null) {
+            return LikeChanges.NONE;
+        }
+        version.incrementAndGet();
+        return changes;
+    }
+
+    @Override
+    public List<Film> findPopular(int count) {
+        return withLikes(jdbc.query("SELECT " + COLUMNS + " FROM films ORDER BY likes_count DESC, id LIMIT ?",
+                FILM_MAPPER, count));
+    }
+
+    // Блокирует строку фильма до конца транзакции: изменения лайков одного фильма идут по очереди
+    private void lockFilm(int filmId) {
+        if (jdbc.queryForList("SELECT id FROM films WHERE id = ? FOR UPDATE", Integer.class, filmId).isEmpty()) {
+            throw new NotFoundException("Фильм с id=" + filmId + " не найден.");
+        }
+    }
+
+    // Лайки всех фильмов списка одним запросом
+    private List<Film> withLikes(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        Map<Integer, Film> byId = byId(films);
+        jdbc.query("SELECT film_id, user_id FROM likes WHERE film_id = ANY(?) ORDER BY film_id, user_id",
+                rs -> {
+                    byId.get(rs.getInt(1)).addLike(rs.getInt(2));
+                }, (Object) byId.keySet().toArray(Integer[]::new));
+        return films;
+    }
+
+    private static Map<Integer, Film> byId(List<Film> films) {
+        Map<Integer, Film> byId = new HashMap<>(films.size() * 2);
+        for (Film film : films) {
+            byId.put(film.getId(), film);
+        }
+        return byId;
+    }
+
+    private static List<Object[]> pairs(int filmId, int[] userIds) {
+        List<Object[]> pairs = new ArrayList<>(userIds.length);
+        for (int userId : userIds) {
+            pairs.add(new Object[]{filmId, userId});
+        }
+        return pairs;
+    }
+
+    private static List<Object[]> likePairs(int filmId, int[] userIds) {
+        List<Object[]> pairs = new ArrayList<>(userIds.length);
+        for (int userId : userIds) {
+            pairs.add(new Object[]{filmId, userId, filmId, userId});
+        }
+        return pairs;
+    }
+
+    // Пакет JDBC: один вызов executeBatch на все строки; возвращает число изменённых строк
+    private int batch(String sql, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        int total = 0;
+        for (int count : jdbc.batchUpdate(sql, rows)) {
+            total += count;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.storage.jdbc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.init.DataSourceScriptDatabaseInitializer;
+import org.springframework.boot.sql.init.DatabaseInitializationMode;
+import org.springframework.boot.sql.init.DatabaseInitializationSettings;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.cache.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.cache.CachingUserStorage;
+import ru.yandex.practicum.filmorate.storage.cache.StorageCacheProperties;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Реляционное хранилище: filmorate.storage.type=h2. Пул соединений (HikariCP)
+ * и JdbcTemplate настраивает Spring Boot по spring.datasource.*.
+ * Поверх хранилищ ставится кэш горячих фильмов и пользователей (filmorate.storage.cache.*).
+ */
+@Configuration
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "h2")
+public class JdbcStorageConfiguration {
+
+    public static final String SCHEMA = "classpath:db/h2/schema.sql";
+
+    // Схема создаётся до первого обращения к JdbcTemplate; повторный запуск на файловой базе ничего не меняет
+    @Bean
+    public DataSourceScriptDatabaseInitializer filmorateSchemaInitializer(DataSource dataSource) {
+        DatabaseInitializationSettings settings = new DatabaseInitializationSettings();
+        settings.setSchemaLocations(List.of(SCHEMA));
+        settings.setMode(DatabaseInitializationMode.ALWAYS);
+        return new DataSourceScriptDatabaseInitializer(dataSource, settings);
+    }
+
+    @Bean
+    public FilmStorage filmStorage(JdbcTemplate jdbc, TransactionTemplate transactions,
+                                   StorageCacheProperties cache, MeterRegistry meterRegistry) {
+        FilmStorage storage = new JdbcFilmStorage(jdbc, transactions);
+        return cache.getMaxFilms() > 0 ? new CachingFilmStorage(storage, cache.getMaxFilms(), meterRegistry) : storage;
+    }
+
+    @Bean
+    public UserStorage userStorage(JdbcTemplate jdbc, TransactionTemplate transactions,
+                                   StorageCacheProperties cache, MeterRegistry meterRegistry) {
+        UserStorage storage = new JdbcUserStorage(jdbc, transactions);
+        return cache.getMaxUsers() > 0 ? new CachingUserStorage(storage, cache.getMaxUsers(), meterRegistry) : storage;
+    }
+}
@@ -0,0 +1,207 @@
+package ru.yandex.practicum.filmorate.storage.jdbc;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Хранилище пользователей во встроенной H2 (см. {@link JdbcFilmStorage}).
+ * Дружбы — строки таблицы friendships, по одной на каждую сторону.
+ */
+public class JdbcUserStorage implements UserStorage {
+
+    private static final String COLUMNS = "id, email, login, name, birthday";
+
+    private static final RowMapper<User> USER_MAPPER = (rs, rowNum) -> {
+        User user = new User();
+        user.setId(rs.getInt("id"));
+        user.setEmail(rs.getString("email"));
+        user.setLogin(rs.getString("login"));
+        user.setName(rs.getString("name"));
+        Date birthday = rs.getDate("birthday");
+        user.setBirthday(birthday == null ? null : birthday.toLocalDate());
+        return user;
+    };
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+    private final AtomicLong version = new AtomicLong();
+
+    public JdbcUserStorage(JdbcTemplate jdbc, TransactionTemplate transactions) {
+        this.jdbc = jdbc;
+        this.transactions = transactions;
+    }
+
+    @Override
+    public User createUser(User user) {
+        if (user.getName() == null || user.getName().isBlank()) {
+            user.setName(user.getLogin());
+        }
+        int[] friends = user.getFriends().toIntArray();
+        transactions.executeWithoutResult(status -> {
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbc.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                        Statement.RETURN_GENERATED_KEYS);
+                statement.setString(1, user.getEmail());
+                statement.setString(2, user.getLogin());
+                statement.setString(3, user.getName());
+                statement.setObject(4, user.getBirthday());
+                return statement;
+            }, keys);
+            user.setId(Objects.requireNonNull(keys.getKey()).intValue());
+            if (friends.length > 0) {
+                List<Object[]> rows = new ArrayList<>(friends.length);
+                for (int friendId : friends) {
+                    rows.add(new Object[]{user.getId(), friendId});
+                }
+                jdbc.batchUpdate("INSERT INTO friendships (user_id, friend_id) VALUES (?, ?)", rows);
+            }
+        });
+        version.incrementAndGet();
+        return user;
+    }
+
+    /**
+     * Обновляет поля пользователя; дружбы меняются только через addFriend/removeFriend,
+     * а в возвращаемом объекте заменяются сохранёнными.
+     */
+    @Override
+    public User updateUser(User user) {
+        int updated = jdbc.update("UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE id = ?",
+                user.getEmail(), user.getLogin(), user.getName(), user.getBirthday(), user.getId());
+        if (updated == 0) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        version.incrementAndGet();
+        user.setFriends(new HashSet<>(jdbc.queryForList(
+                "SELECT friend_id FROM friendships WHERE user_id = ?", Integer.class, user.getId())));
+        return user;
+    }
+
+    @Override
+    public List<User> findAll() {
+        List<User> users = jdbc.query("SELECT " + COLUMNS + " FROM users ORDER BY id", USER_MAPPER);
+        Map<Integer, User> byId = byId(users);
+        jdbc.query("SELECT user_id, friend_id FROM friendships ORDER BY user_id, friend_id", rs -> {
+            User user = byId.get(rs.getInt(1));
+            if (user != null) {
+                user.addFriend(rs.getInt(2));
+            }
+        });
+        return users;
+    }
+
+    @Override
+    public List<User> findPage(int afterId, int limit) {
+        return withFriends(jdbc.query("SELECT " + COLUMNS + " FROM users WHERE id > ? ORDER BY id LIMIT ?",
+                USER_MAPPER, afterId, limit));
+    }
+
+    @Override
+    public User findById(int id) {
+        List<User> users = withFriends(jdbc.query("SELECT " + COLUMNS + " FROM users WHERE id = ?", USER_MAPPER, id));
+        return users.isEmpty() ? null : users.get(0);
+    }
+
+    @Override
+    public boolean deleteUser(int id) {
+        // Свои строки дружб удаляются каскадом, обратные стороны снимает сервис
+        if (jdbc.update("DELETE FROM users WHERE id = ?", id) == 0) {
+            return false;
+        }
+        version.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(jdbc.queryForList("SELECT id FROM users WHERE id = ANY(?)", Integer.class,
+                (Object) ids.toArray(Integer[]::new)));
+    }
+
+    @Override
+    public void deleteAll() {
+        jdbc.update("DELETE FROM users");
+        jdbc.execute("ALTER TABLE users ALTER COLUMN id RESTART WITH 1");
+        version.incrementAndGet();
+    }
+
+    @Override
+    public long version() {
+        return version.get();
+    }
+
+    @Override
+    public int count() {
+        return Objects.requireNonNull(jdbc.queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+    }
+
+    @Override
+    public boolean addFriend(int userId, int friendId) {
+        boolean added = Boolean.TRUE.equals(transactions.execute(status -> {
+            lockUser(userId);
+            return jdbc.update("INSERT INTO friendships (user_id, friend_id) SELECT ?, ? "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM friendships WHERE user_id = ? AND friend_id = ?)",
+                    userId, friendId, userId, friendId) > 0;
+        }));
+        if (added) {
+            version.incrementAndGet();
+        }
+        return added;
+    }
+
+    @Override
+    public boolean removeFriend(int userId, int friendId) {
+        boolean removed = Boolean.TRUE.equals(transactions.execute(status -> {
+            lockUser(userId);
+            return jdbc.update("DELETE FROM friendships WHERE user_id = ? AND friend_id = ?", userId, friendId) > 0;
+        }));
+        if (removed) {
+            version.incrementAndGet();
+        }
+        return removed;
+    }
+
+    private void lockUser(int userId) {
+        if (jdbc.queryForList("SELECT id FROM users WHERE id = ? FOR UPDATE", Integer.class, userId).isEmpty()) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+    }
+
+    // Друзья всех пользователей списка одним запросом
+    private List<User> withFriends(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        Map<Integer, User> byId = byId(users);
+        jdbc.query("SELECT user_id, friend_id FROM friendships WHERE user_id = ANY(?) ORDER BY user_id, friend_id",
+                rs -> {
+                    byId.get(rs.getInt(1)).addFriend(rs.getInt(2));
+                }, (Object) byId.keySet().toArray(Integer[]::new));
+        return users;
+    }
+
+    private static Map<Integer, User> byId(List<User> users) {
+        Map<Integer, User> byId = new HashMap<>(users.size() * 2);
+        for (User user : users) {
+            byId.put(user.getId(), user);
+        }
+        return byId;
+    }
+}
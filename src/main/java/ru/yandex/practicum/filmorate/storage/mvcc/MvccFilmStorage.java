@@ -0,0 +1,261 @@
+package ru.yandex.practicum.filmorate.storage.mvcc;
+
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.ReleaseDateIndex;
+import ru.yandex.practicum.filmorate.storage.UserLikesIndex;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Многоверсионное хранилище фильмов в памяти (filmorate.storage.type=mvcc).
+ * <p>
+ * Отданный хранилищем фильм больше никогда не меняется: запись строит новую версию
+ * (поля и множество лайков копируются только при их изменении, иначе разделяются со старой
+ * версией) и фиксирует её в {@link VersionedMap}. Поэтому читатель не видит полуизменённых
+ * объектов, а списки — все фильмы, страница, популярные — собираются из одного снимка на
+ * момент начала запроса, без блокировок писателей на время обхода.
+ * <p>
+ * Цена — копирование лайков фильма при каждом их изменении, O(лайков фильма): для горячих
+ * фильмов изменения стоит собирать в пачки ({@link #applyLikes}, асинхронный приём лайков).
+ * Индексы популярности, дат выхода и лайков пользователей отражают последнее состояние
+ * и служат только для выбора кандидатов; сами фильмы и их порядок берутся из снимка.
+ * Фильмы, полученные из хранилища, нельзя менять — для правки есть {@link Film#copy()}.
+ */
+public class MvccFilmStorage implements FilmStorage {
+
+    private static final Comparator<Film> BY_POPULARITY =
+            Comparator.comparingInt((Film film) -> film.getLikes().size()).reversed()
+                    .thenComparingInt(Film::getId);
+
+    private final VersionedMap<Film> films = new VersionedMap<>();
+    private final AtomicInteger idGenerator = new AtomicInteger();
+    private final PopularityIndex popularity = new PopularityIndex();
+    private final ReleaseDateIndex releaseDates = new ReleaseDateIndex();
+    private final UserLikesIndex likesByUser = new UserLikesIndex();
+
+    @Override
+    public Film createFilm(Film film) {
+        film.setId(idGenerator.incrementAndGet());
+        Film stored = film.copy();
+        synchronized (films.lock(stored.getId())) {
+            films.replace(stored.getId(), null, stored);
+            popularity.update(stored.getId(), stored.getLikes()::size);
+            releaseDates.update(stored.getId(), stored.getReleaseDate());
+            likesByUser.replace(stored.getId(), null, stored.getLikes());
+        }
+        return film;
+    }
+
+    /**
+     * Новая версия с полями переданного фильма и прежними лайками: лайки меняются
+     * только операциями с лайками, как в остальных хранилищах.
+     */
+    @Override
+    public Film updateFilm(Film film) {
+        synchronized (films.lock(film.getId())) {
+            Film current = films.latest(film.getId());
+            if (current == null) {
+                throw new ValidationException("Фильм не найден");
+            }
+            Film next = current.withLikes(current.getLikes());
+            next.setName(film.getName());
+            next.setDescription(film.getDescription());
+            next.setReleaseDate(film.getReleaseDate());
+            next.setDuration(film.getDuration());
+            if (!films.replace(next.getId(), current, next)) {
+                throw new ValidationException("Фильм не найден");
+            }
+            releaseDates.update(next.getId(), next.getReleaseDate());
+            return next;
+        }
+    }
+
+    @Override
+    public List<Film> findAll() {
+        try (VersionedMap<Film>.Snapshot snapshot = films.snapshot()) {
+            return snapshot.values(0).toList();
+        }
+    }
+
+    @Override
+    public List<Film> findPage(int afterId, int limit) {
+        try (VersionedMap<Film>.Snapshot snapshot = films.snapshot()) {
+            return snapshot.values(afterId).limit(limit).toList();
+        }
+    }
+
+    @Override
+    public List<Film> findByReleaseDate(LocalDate from, LocalDate to, int limit) {
+        try (VersionedMap<Film>.Snapshot snapshot = films.snapshot()) {
+            List<Film> result = new ArrayList<>();
+            for (int id : releaseDates.range(from, to, limit)) {
+                Film film = snapshot.get(id);
+                // Индекс отражает последнее состояние: дату проверяем по версии из снимка
+                if (film != null && isWithin(film.getReleaseDate(), from, to)) {
+                    result.add(film);
+                }
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public Film findById(int id) {
+        return films.latest(id);
+    }
+
+    @Override
+    public int[] findLikedFilmIds(int userId) {
+        return likesByUser.filmIds(userId);
+    }
+
+    @Override
+    public boolean deleteFilm(int id) {
+        synchronized (films.lock(id)) {
+            Film current = films.latest(id);
+            if (current == null || !films.replace(id, current, null)) {
+                return false;
+            }
+            popularity.remove(id);
+            releaseDates.remove(id);
+            likesByUser.replace(id, current.getLikes(), null);
+            return true;
+        }
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        Set<Integer> existing = new HashSet<>();
+        for (Integer id : ids) {
+            if (id != null && films.latest(id) != null) {
+                existing.add(id);
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public void deleteAll() {
+        films.clear();
+        popularity.clear();
+        releaseDates.clear();
+        likesByUser.clear();
+        idGenerator.set(0);
+    }
+
+    @Override
+    public long version() {
+        return films.clock();
+    }
+
+    @Override
+    public int count() {
+        return films.size();
+    }
+
+    @Override
+    public long countLikes() {
+        try (VersionedMap<Film>.Snapshot snapshot = films.snapshot()) {
+            return snapshot.values(0).mapToLong(film -> film.getLikes().size()).sum();
+        }
+    }
+
+    @Override
+    public boolean addLike(int filmId, int userId) {
+        synchronized (films.lock(filmId)) {
+            Film current = getExisting(filmId);
+            if (current.getLikes().contains(userId)) {
+                return false;
+            }
+            IntSet likes = new IntSet(current.getLikes());
+            likes.add(userId);
+            commitLikes(current, likes);
+            likesByUser.add(userId, filmId);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean removeLike(int filmId, int userId) {
+        synchronized (films.lock(filmId)) {
+            Film current = getExisting(filmId);
+            if (!current.getLikes().contains(userId)) {
+                return false;
+            }
+            IntSet likes = new IntSet(current.getLikes());
+            likes.remove(userId);
+            commitLikes(current, likes);
+            likesByUser.remove(userId, filmId);
+            return true;
+        }
+    }
+
+    @Override
+    public LikeChanges applyLikes(int filmId, int[] addedUserIds, int[] removedUserIds) {
+        synchronized (films.lock(filmId)) {
+            Film current = getExisting(filmId);
+            // Одна копия лайков на всю пачку
+            IntSet likes = new IntSet(current.getLikes());
+            int added = likes.addAll(addedUserIds);
+            int removed = likes.removeAll(removedUserIds);
+            if (added + removed == 0) {
+                return LikeChanges.NONE;
+            }
+            commitLikes(current, likes);
+            for (int userId : addedUserIds) {
+                if (likes.contains(userId)) {
+                    likesByUser.add(userId, filmId);
+                }
+            }
+            for (int userId : removedUserIds) {
+                if (!likes.contains(userId)) {
+                    likesByUser.remove(userId, filmId);
+                }
+            }
+            return new LikeChanges(added, removed);
+        }
+    }
+
+    @Override
+    public List<Film> findPopular(int count) {
+        try (VersionedMap<Film>.Snapshot snapshot = films.snapshot()) {
+            List<Film> result = new ArrayList<>();
+            for (int id : popularity.top(count)) {
+                Film film = snapshot.get(id);
+                if (film != null) {
+                    result.add(film);
+                }
+            }
+            // Порядок — по числу лайков в снимке: версии неизменяемы, сортировка согласована
+            result.sort(BY_POPULARITY);
+            return result;
+        }
+    }
+
+    // Вызывается под монитором фильма
+    private void commitLikes(Film current, IntSet likes) {
+        if (!films.replace(current.getId(), current, current.withLikes(likes))) {
+            throw new NotFoundException("Фильм с id=" + current.getId() + " не найден.");
+        }
+        popularity.update(current.getId(), likes::size);
+    }
+
+    private Film getExisting(int filmId) {
+        Film film = films.latest(filmId);
+        if (film == null) {
+            throw new NotFoundException("Фильм с id=" + filmId + " не найден.");
+        }
+        return film;
+    }
+
+    private static boolean isWithin(LocalDate date, LocalDate from, LocalDate to) {
+        return date != null && (from == null || !date.isBefore(from)) && (to == null || !date.isAfter(to));
+    }
+}
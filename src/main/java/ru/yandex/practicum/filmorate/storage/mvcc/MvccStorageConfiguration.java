@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.storage.mvcc;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+/**
+ * Многоверсионное хранилище в памяти: filmorate.storage.type=mvcc.
+ * Журнал и снимки в этом режиме не ведутся.
+ */
+@Configuration
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "mvcc")
+public class MvccStorageConfiguration {
+
+    @Bean
+    public FilmStorage filmStorage() {
+        return new MvccFilmStorage();
+    }
+
+    @Bean
+    public UserStorage userStorage() {
+        return new MvccUserStorage();
+    }
+}
@@ -0,0 +1,167 @@
+package ru.yandex.practicum.filmorate.storage.mvcc;
+
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Многоверсионное хранилище пользователей в памяти (см. {@link MvccFilmStorage}).
+ * Список друзей собирается из одного снимка: пользователь и его друзья — в состоянии
+ * на один момент, удалённые к этому моменту друзья не попадают в ответ.
+ */
+public class MvccUserStorage implements UserStorage {
+
+    private final VersionedMap<User> users = new VersionedMap<>();
+    private final AtomicInteger idGenerator = new AtomicInteger();
+
+    @Override
+    public User createUser(User user) {
+        if (user.getName() == null || user.getName().isBlank()) {
+            user.setName(user.getLogin());
+        }
+        user.setId(idGenerator.incrementAndGet());
+        User stored = user.copy();
+        synchronized (users.lock(stored.getId())) {
+            users.replace(stored.getId(), null, stored);
+        }
+        return user;
+    }
+
+    /**
+     * Новая версия с полями переданного пользователя и прежними друзьями.
+     */
+    @Override
+    public User updateUser(User user) {
+        synchronized (users.lock(user.getId())) {
+            User current = getExisting(user.getId());
+            User next = current.withFriends(current.getFriends());
+            next.setEmail(user.getEmail());
+            next.setLogin(user.getLogin());
+            next.setName(user.getName());
+            next.setBirthday(user.getBirthday());
+            if (!users.replace(next.getId(), current, next)) {
+                throw new NotFoundException("Пользователь не найден");
+            }
+            return next;
+        }
+    }
+
+    @Override
+    public List<User> findAll() {
+        try (VersionedMap<User>.Snapshot snapshot = users.snapshot()) {
+            return snapshot.values(0).toList();
+        }
+    }
+
+    @Override
+    public List<User> findPage(int afterId, int limit) {
+        try (VersionedMap<User>.Snapshot snapshot = users.snapshot()) {
+            return snapshot.values(afterId).limit(limit).toList();
+        }
+    }
+
+    @Override
+    public User findById(int id) {
+        return users.latest(id);
+    }
+
+    @Override
+    public List<User> findFriends(int userId) {
+        try (VersionedMap<User>.Snapshot snapshot = users.snapshot()) {
+            User user = snapshot.get(userId);
+            if (user == null) {
+                return null;
+            }
+            List<User> friends = new ArrayList<>(user.getFriends().size());
+            for (int friendId : user.getFriends().toIntArray()) {
+                User friend = snapshot.get(friendId);
+                if (friend != null) {
+                    friends.add(friend);
+                }
+            }
+            return friends;
+        }
+    }
+
+    @Override
+    public boolean deleteUser(int id) {
+        synchronized (users.lock(id)) {
+            User current = users.latest(id);
+            return current != null && users.replace(id, current, null);
+        }
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        Set<Integer> existing = new HashSet<>();
+        for (Integer id : ids) {
+            if (id != null && users.latest(id) != null) {
+                existing.add(id);
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public void deleteAll() {
+        users.clear();
+        idGenerator.set(0);
+    }
+
+    @Override
+    public long version() {
+        return users.clock();
+    }
+
+    @Override
+    public int count() {
+        return users.size();
+    }
+
+    @Override
+    public boolean addFriend(int userId, int friendId) {
+        synchronized (users.lock(userId)) {
+            User current = getExisting(userId);
+            if (current.getFriends().contains(friendId)) {
+                return false;
+            }
+            IntSet friends = new IntSet(current.getFriends());
+            friends.add(friendId);
+            commitFriends(current, friends);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean removeFriend(int userId, int friendId) {
+        synchronized (users.lock(userId)) {
+            User current = getExisting(userId);
+            if (!current.getFriends().contains(friendId)) {
+                return false;
+            }
+            IntSet friends = new IntSet(current.getFriends());
+            friends.remove(friendId);
+            commitFriends(current, friends);
+            return true;
+        }
+    }
+
+    // Вызывается под монитором пользователя
+    private void commitFriends(User current, IntSet friends) {
+        if (!users.replace(current.getId(), current, current.withFriends(friends))) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+    }
+
+    private User getExisting(int userId) {
+        User user = users.latest(userId);
+        if (user == null) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        return user;
+    }
+}
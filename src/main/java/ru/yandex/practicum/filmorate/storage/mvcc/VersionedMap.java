@@ -0,0 +1,224 @@
+package ru.yandex.practicum.filmorate.storage.mvcc;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Многоверсионная карта ID -> неизменяемое значение.
+ * <p>
+ * Запись хранится цепочкой версий от новой к старой, у каждой — номер коммита. Писатель
+ * строит новое значение, не трогая опубликованные, и ставит его в голову цепочки под общим
+ * замком коммита; внутри замка только присвоение номера и замена головы, O(1). Записи одного
+ * ID писатель сериализует сам, через {@link #lock(int)}.
+ * <p>
+ * {@link Snapshot} запоминает номер последнего коммита и видит у каждой записи новейшую
+ * версию не новее него — состояние на момент открытия снимка, без блокировок, сколько бы ни
+ * длился обход. Старые версии нужны только открытым снимкам: после каждой записи её цепочка
+ * обрезается по самому старому из них, а удалённые записи уходят из карты, когда их больше
+ * не видит ни один снимок.
+ */
+final class VersionedMap<T> {
+
+    private static final int LOCK_STRIPES = 1024;
+
+    private static final class Version<T> {
+        final long commit;
+        final T value; // null — запись удалена
+        volatile Version<T> previous;
+
+        Version(long commit, T value, Version<T> previous) {
+            this.commit = commit;
+            this.value = value;
+            this.previous = previous;
+        }
+    }
+
+    private record Tombstone<T>(int id, Version<T> version) {
+    }
+
+    private final ConcurrentSkipListMap<Integer, Version<T>> heads = new ConcurrentSkipListMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final Object commitLock = new Object();
+    private volatile long clock;
+    private volatile int live;
+    // Открытые снимки: номер коммита -> число читателей; под собственным монитором
+    private final TreeMap<Long, Integer> readers = new TreeMap<>();
+    // Удалённые записи в порядке коммита: убираются из карты, когда их не видит ни один снимок
+    private final Queue<Tombstone<T>> tombstones = new ConcurrentLinkedQueue<>();
+
+    VersionedMap() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Монитор для записей данного ID: чтение текущего значения, построение нового
+     * и {@link #replace} выполняются под ним.
+     */
+    Object lock(int id) {
+        return locks[Math.floorMod(id, LOCK_STRIPES)];
+    }
+
+    /**
+     * Номер последнего коммита: растёт с каждой записью.
+     */
+    long clock() {
+        return clock;
+    }
+
+    /**
+     * Число неудалённых записей на последний коммит.
+     */
+    int size() {
+        return live;
+    }
+
+    /**
+     * Последнее зафиксированное значение; null если записи нет.
+     */
+    T latest(int id) {
+        Version<T> head = heads.get(id);
+        return head == null ? null : head.value;
+    }
+
+    /**
+     * Зафиксировать новое значение записи, если текущее — всё ещё expected
+     * (сравнение по ссылке). Разойтись они могут только из-за {@link #clear()}.
+     *
+     * @param value новое значение; null — удалить запись
+     * @return false если запись успели изменить
+     */
+    boolean replace(int id, T expected, T value) {
+        Version<T> version;
+        synchronized (commitLock) {
+            Version<T> head = heads.get(id);
+            if ((head == null ? null : head.value) != expected) {
+                return false;
+            }
+            version = new Version<>(clock + 1, value, head);
+            heads.put(id, version);
+            live += (value != null ? 1 : 0) - (expected != null ? 1 : 0);
+            clock = version.commit;
+        }
+        if (value == null) {
+            tombstones.add(new Tombstone<>(id, version));
+        }
+        collect(version);
+        return true;
+    }
+
+    /**
+     * Удалить все записи одним коммитом: открытые снимки продолжают видеть прежние данные.
+     */
+    void clear() {
+        synchronized (commitLock) {
+            long commit = clock + 1;
+            // Живые головы меняются только под этим замком, поэтому replace не промахнётся
+            heads.forEach((id, head) -> {
+                if (head.value != null) {
+                    Version<T> tombstone = new Version<>(commit, null, head);
+                    heads.replace(id, head, tombstone);
+                    tombstones.add(new Tombstone<>(id, tombstone));
+                }
+            });
+            live = 0;
+            clock = commit;
+        }
+        collect(null);
+    }
+
+    /**
+     * Открыть снимок на последний коммит. Снимок нужно закрыть: до этого под него
+     * сохраняются старые версии.
+     */
+    Snapshot snapshot() {
+        synchronized (readers) {
+            // Номер читается под тем же монитором, что и в oldestVisible(): сборщик не обрежет
+            // версии, которые снимок ещё не успел зарегистрировать
+            long commit = clock;
+            readers.merge(commit, 1, Integer::sum);
+            return new Snapshot(commit);
+        }
+    }
+
+    // Самый старый коммит, который ещё может понадобиться читателю
+    private long oldestVisible() {
+        synchronized (readers) {
+            return readers.isEmpty() ? clock : readers.firstKey();
+        }
+    }
+
+    private void collect(Version<T> written) {
+        long oldest = oldestVisible();
+        if (written != null) {
+            // Версии старше новейшей из видимых самому старому снимку больше никому не нужны
+            for (Version<T> version = written; version != null; version = version.previous) {
+                if (version.commit <= oldest) {
+                    version.previous = null;
+                    break;
+                }
+            }
+        }
+        Tombstone<T> tombstone;
+        while ((tombstone = tombstones.peek()) != null && tombstone.version().commit <= oldest) {
+            if (tombstones.remove(tombstone)) {
+                heads.remove(tombstone.id(), tombstone.version());
+            }
+        }
+    }
+
+    /**
+     * Согласованное состояние карты на момент открытия снимка.
+     */
+    final class Snapshot implements AutoCloseable {
+
+        private final long commit;
+        private boolean closed;
+
+        private Snapshot(long commit) {
+            this.commit = commit;
+        }
+
+        /**
+         * Значение записи в снимке; null если её не было или она была удалена.
+         */
+        T get(int id) {
+            return visible(heads.get(id));
+        }
+
+        /**
+         * Значения записей с ID больше afterId в порядке возрастания ID. Поток ленивый:
+         * обход останавливается, как только потребителю хватит значений.
+         */
+        Stream<T> values(int afterId) {
+            return heads.tailMap(afterId, false).values().stream()
+                    .map(this::visible)
+                    .filter(Objects::nonNull);
+        }
+
+        private T visible(Version<T> head) {
+            for (Version<T> version = head; version != null; version = version.previous) {
+                if (version.commit <= commit) {
+                    return version.value;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            synchronized (readers) {
+                readers.computeIfPresent(commit, (key, count) -> count == 1 ? null : count - 1);
+            }
+        }
+    }
+}
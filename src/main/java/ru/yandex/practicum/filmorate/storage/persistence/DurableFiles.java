@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Замена файлов, переживающая сбой питания.
+ */
+final class DurableFiles {
+
+    private DurableFiles() {
+    }
+
+    /**
+     * Атомарно заменить target готовым файлом source. Переименование — запись в каталоге,
+     * а не в файле: без fsync каталога после сбоя может вернуться прежний target.
+     * Содержимое source к этому моменту уже должно быть сброшено на диск.
+     */
+    static void replace(Path source, Path target) throws IOException {
+        Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Path directory = target.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+}
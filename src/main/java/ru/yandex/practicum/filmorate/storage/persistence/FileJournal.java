@@ -0,0 +1,431 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Журнал в файле с групповым коммитом.
+ * <p>
+ * Формат кадра: [int длина тела][int CRC32C тела][тело = long номер + запись].
+ * Потоки-писатели только кодируют запись и дописывают кадр в буфер в памяти;
+ * единственный поток журнала забирает накопившийся буфер целиком, пишет его одним
+ * вызовом и делает один fsync на всю группу. Буфер ограничен maxPendingBytes: когда диск
+ * не успевает, писатели ждут, пока поток журнала заберёт накопленное, и память не растёт
+ * без предела при любой политике fsync. При старте журнал читается до первого
+ * неполного или повреждённого кадра, хвост после него обрезается.
+ * <p>
+ * Ошибка записи в файл необратима: журнал закрывается и отклоняет все следующие
+ * изменения ещё до того, как они попадут в память хранилищ ({@link #awaitWritable}).
+ * Изменение, пропущенное {@link #awaitWritable}, уже не отклоняется: закрытие ждёт
+ * его записи, а ошибка записи теряет его вместе с остальной очередью.
+ */
+@Slf4j
+public class FileJournal implements Journal {
+
+    private static final int FRAME_HEADER_BYTES = Integer.BYTES * 2;
+    private static final int DEFAULT_MAX_PENDING_BYTES = 16 * 1024 * 1024;
+
+    private final Path path;
+    private FileChannel channel; // после старта используется только потоком журнала
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final int maxPendingBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hasPending = lock.newCondition();
+    private final Condition durableAdvanced = lock.newCondition();
+    private final Condition spaceAvailable = lock.newCondition();
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(64 * 1024);
+    private final CRC32C crc = new CRC32C();
+    private long lastSeq;     // под lock
+    private long durableSeq;  // под lock
+    private boolean closed;   // под lock
+    private int reserved;     // под lock; сколько awaitWritable ещё ждут своего append
+    private IOException failure; // под lock
+    private long compactUpToSeq; // под lock; 0 — сжатие не запрошено
+    private Thread writer;
+
+    public FileJournal(Path path, FsyncPolicy fsyncPolicy, Duration fsyncInterval) throws IOException {
+        this(path, fsyncPolicy, fsyncInterval, DEFAULT_MAX_PENDING_BYTES);
+    }
+
+    /**
+     * @param maxPendingBytes сколько байт кадров может ждать записи в файл; кадр крупнее
+     *                        предела ставится в очередь, только когда буфер пуст
+     */
+    public FileJournal(Path path, FsyncPolicy fsyncPolicy, Duration fsyncInterval, int maxPendingBytes)
+            throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        this.maxPendingBytes = maxPendingBytes;
+    }
+
+    @Override
+    public void replay(long afterSeq, Consumer<JournalRecord> handler) {
+        lock.lock();
+        try {
+            if (writer != null) {
+                throw new IllegalStateException("Журнал уже проигран");
+            }
+            long validEnd = 0;
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(channel.position(0)), 64 * 1024));
+            int replayed = 0;
+            while (true) {
+                byte[] body = readFrame(in);
+                if (body == null) {
+                    break;
+                }
+                ByteBuffer record = ByteBuffer.wrap(body);
+                long seq = record.getLong();
+                if (seq > afterSeq) {
+                    handler.accept(JournalCodec.decode(record));
+                    replayed++;
+                }
+                lastSeq = seq;
+                validEnd += FRAME_HEADER_BYTES + body.length;
+            }
+            if (validEnd < channel.size()) {
+                log.warn("Журнал: обрезан повреждённый хвост, {} байт", channel.size() - validEnd);
+                channel.truncate(validEnd);
+            }
+            channel.position(validEnd);
+            // После сжатия журнал может быть пуст: нумерация продолжается со снимка
+            lastSeq = Math.max(lastSeq, afterSeq);
+            durableSeq = lastSeq;
+            log.info("Журнал: проиграно {} записей, последний номер {}", replayed, lastSeq);
+            writer = new Thread(this::writeLoop, "filmorate-journal");
+            writer.setDaemon(true);
+            writer.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать журнал", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void awaitWritable() {
+        lock.lock();
+        try {
+            awaitSpace(1);
+            reserved++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void releaseWritable() {
+        lock.lock();
+        try {
+            if (reserved > 0) {
+                reserved--;
+                hasPending.signal(); // закрытие могло ждать только этой записи
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long append(JournalRecord record) {
+        byte[] payload = JournalCodec.encode(record);
+        int frameBytes = FRAME_HEADER_BYTES + Long.BYTES + payload.length;
+        lock.lock();
+        try {
+            if (reserved == 0) {
+                awaitSpace(frameBytes);
+            } else {
+                // Изменение уже видно читателям: ждём места, но не отклоняем запись.
+                // Резерв снимается только после ожидания, иначе поток журнала может
+                // остановиться, не дождавшись кадра
+                while (pending.size() > 0 && pending.size() + frameBytes > maxPendingBytes && failure == null) {
+                    spaceAvailable.awaitUninterruptibly();
+                }
+                reserved--;
+            }
+            long seq = ++lastSeq;
+            if (failure == null) {
+                byte[] body = ByteBuffer.allocate(Long.BYTES + payload.length).putLong(seq).put(payload).array();
+                crc.reset();
+                crc.update(body);
+                writeInt(body.length);
+                writeInt((int) crc.getValue());
+                pending.write(body, 0, body.length);
+            }
+            hasPending.signal();
+            return seq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Размер буфера кадров, ещё не отданных в файл
+    int pendingBytes() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long lastSeq() {
+        lock.lock();
+        try {
+            return lastSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void compact(long upToSeq) {
+        lock.lock();
+        try {
+            compactUpToSeq = Math.max(compactUpToSeq, upToSeq);
+            hasPending.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void awaitDurable(long seq) {
+        if (fsyncPolicy != FsyncPolicy.ALWAYS) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (durableSeq < seq && failure == null) {
+                durableAdvanced.awaitUninterruptibly();
+            }
+            if (durableSeq < seq) {
+                throw new UncheckedIOException("Журнал недоступен", failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Закрыть журнал: новые изменения отклоняются, а уже пропущенные {@link #awaitWritable}
+     * дописываются в файл до остановки потока журнала.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            hasPending.signal();
+            spaceAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            if (writer != null) {
+                writer.join();
+            }
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("Журнал: ошибка при закрытии", e);
+        }
+    }
+
+    private void writeLoop() {
+        long written;
+        lock.lock();
+        try {
+            written = lastSeq;
+        } finally {
+            lock.unlock();
+        }
+        long forced = written;
+        long lastForceNanos = System.nanoTime();
+        try {
+            while (true) {
+                byte[] batch = null;
+                long batchSeq = written;
+                long compactSeq;
+                boolean stopping;
+                lock.lock();
+                try {
+                    while (pending.size() == 0 && (!closed || reserved > 0) && compactUpToSeq == 0) {
+                        if (fsyncPolicy == FsyncPolicy.INTERVAL && written > forced) {
+                            long waitNanos = fsyncIntervalNanos - (System.nanoTime() - lastForceNanos);
+                            if (waitNanos <= 0) {
+                                break;
+                            }
+                            hasPending.awaitNanos(waitNanos);
+                        } else {
+                            hasPending.await();
+                        }
+                    }
+                    if (pending.size() > 0) {
+                        batch = pending.toByteArray();
+                        pending.reset();
+                        batchSeq = lastSeq;
+                        spaceAvailable.signalAll();
+                    }
+                    stopping = closed && batch == null && reserved == 0;
+                    compactSeq = compactUpToSeq;
+                    compactUpToSeq = 0;
+                } finally {
+                    lock.unlock();
+                }
+
+                if (batch != null) {
+                    ByteBuffer buffer = ByteBuffer.wrap(batch);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    written = batchSeq;
+                }
+                boolean forceDue = switch (fsyncPolicy) {
+                    case ALWAYS -> true;
+                    case INTERVAL -> System.nanoTime() - lastForceNanos >= fsyncIntervalNanos;
+                    case NEVER -> false;
+                };
+                if (written > forced && (forceDue || stopping)) {
+                    channel.force(false);
+                    forced = written;
+                    lastForceNanos = System.nanoTime();
+                }
+
+                lock.lock();
+                try {
+                    durableSeq = fsyncPolicy == FsyncPolicy.ALWAYS ? forced : written;
+                    durableAdvanced.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                if (compactSeq > 0 && !stopping) {
+                    compactUpTo(compactSeq);
+                }
+                if (stopping) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            log.error("Журнал: ошибка записи, запись остановлена", e);
+            lock.lock();
+            try {
+                failure = e;
+                closed = true;
+                durableAdvanced.signalAll();
+                spaceAvailable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Удалить из начала файла кадры с номером не больше upToSeq (они уже вошли в снимок).
+     * Хвост копируется во временный файл, который атомарно заменяет журнал; запись
+     * продолжается в новый файл только после того, как замена сброшена на диск.
+     * Выполняется в потоке журнала, поэтому не конкурирует с записью.
+     */
+    private void compactUpTo(long upToSeq) throws IOException {
+        long end = channel.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES + Long.BYTES);
+        while (offset < end) {
+            header.clear();
+            while (header.hasRemaining() && channel.read(header, offset + header.position()) > 0) {
+                // дочитываем заголовок кадра
+            }
+            header.flip();
+            int length = header.getInt();
+            header.getInt();
+            if (header.getLong() > upToSeq) {
+                break;
+            }
+            offset += FRAME_HEADER_BYTES + length;
+        }
+        if (offset == 0) {
+            return;
+        }
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = offset;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, out);
+            }
+            out.force(true);
+        }
+        channel.close();
+        DurableFiles.replace(compacted, path);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        log.info("Журнал сжат: удалено {} байт до записи {}", offset, upToSeq);
+    }
+
+    // Вызывается под lock: ждёт, пока в буфере найдётся место для кадра из bytes байт
+    private void awaitSpace(int bytes) {
+        while (pending.size() > 0 && pending.size() + bytes > maxPendingBytes && failure == null && !closed) {
+            spaceAvailable.awaitUninterruptibly();
+        }
+        ensureWritable();
+    }
+
+    // Вызывается под lock
+    private void ensureWritable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Журнал недоступен", failure);
+        }
+        if (writer == null || closed) {
+            throw new IllegalStateException("Журнал не открыт для записи");
+        }
+    }
+
+    private void writeInt(int value) {
+        pending.write(value >>> 24);
+        pending.write(value >>> 16);
+        pending.write(value >>> 8);
+        pending.write(value);
+    }
+
+    // Читает тело кадра; null — конец журнала или повреждённый кадр
+    private static byte[] readFrame(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            int expectedCrc = in.readInt();
+            if (length < Long.BYTES || length > 64 * 1024 * 1024) {
+                return null;
+            }
+            byte[] body = new byte[length];
+            in.readFully(body);
+            CRC32C check = new CRC32C();
+            check.update(body);
+            return (int) check.getValue() == expectedCrc ? body : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+/**
+ * Политика сброса журнала на диск.
+ */
+public enum FsyncPolicy {
+    // fsync после каждой группы записей; запрос ждёт сброса (групповой коммит)
+    ALWAYS,
+    // fsync не реже заданного интервала; запрос не ждёт диска
+    INTERVAL,
+    // fsync только при закрытии, остальное — на усмотрение ОС
+    NEVER
+}
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import java.util.function.Consumer;
+
+/**
+ * Журнал упреждающей записи (write-ahead log) изменений хранилищ.
+ * <p>
+ * Запись разделена на два шага: {@link #append} только ставит запись в очередь
+ * (его можно вызывать под блокировкой сущности, чтобы порядок в журнале совпадал
+ * с порядком изменений), а {@link #awaitDurable} ждёт сброса на диск согласно
+ * политике fsync и вызывается уже после освобождения блокировки. Изменение в памяти
+ * делается до {@link #append}, поэтому перед ним вызывается {@link #awaitWritable}:
+ * он резервирует запись, и следующий {@link #append} её уже не отклоняет.
+ */
+public interface Journal extends AutoCloseable {
+
+    /**
+     * Журнал-заглушка: ничего не пишет, используется когда журнал выключен.
+     */
+    Journal NO_OP = new Journal() {
+        @Override
+        public void awaitWritable() {
+        }
+
+        @Override
+        public void releaseWritable() {
+        }
+
+        @Override
+        public long append(JournalRecord record) {
+            return 0;
+        }
+
+        @Override
+        public void awaitDurable(long seq) {
+        }
+
+        @Override
+        public long lastSeq() {
+            return 0;
+        }
+
+        @Override
+        public void compact(long upToSeq) {
+        }
+
+        @Override
+        public void replay(long afterSeq, Consumer<JournalRecord> handler) {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /**
+     * Убедиться, что журнал принимает записи, дождаться места в его очереди, если
+     * диск не успевает, и зарезервировать одну запись. Вызывается до изменения данных:
+     * закрытый или сломанный журнал отклоняет изменение раньше, чем его увидят читатели.
+     * За каждым успешным вызовом следует {@link #append} или {@link #releaseWritable}:
+     * закрытие журнала ждёт всех резервов.
+     *
+     * @throws IllegalStateException если журнал не открыт для записи
+     * @throws java.io.UncheckedIOException если запись в файл сломалась: после этого
+     *                                      журнал отклоняет все изменения
+     */
+    void awaitWritable();
+
+    /**
+     * Вернуть резерв {@link #awaitWritable}, если изменение не понадобилось.
+     */
+    void releaseWritable();
+
+    /**
+     * Поставить запись в очередь журнала. После {@link #awaitWritable} запись не отклоняется:
+     * если журнал тем временем сломался, она теряется вместе с остальной очередью,
+     * а {@link #awaitDurable} при политике ALWAYS бросает исключение.
+     *
+     * @return порядковый номер записи
+     */
+    long append(JournalRecord record);
+
+    /**
+     * Дождаться, пока запись с данным номером станет долговечной (по политике fsync).
+     */
+    void awaitDurable(long seq);
+
+    /**
+     * Номер последней поставленной в очередь записи.
+     */
+    long lastSeq();
+
+    /**
+     * Асинхронно удалить записи с номером не больше upToSeq: они уже сохранены в снимке.
+     */
+    void compact(long upToSeq);
+
+    /**
+     * Проиграть записи журнала с номером больше afterSeq. Вызывается один раз при старте,
+     * до первой записи.
+     */
+    void replay(long afterSeq, Consumer<JournalRecord> handler);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,171 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Двоичное представление записей журнала и моделей (big-endian).
+ * Общее для журнала и снимков; чтение идёт из ByteBuffer, в том числе из файла,
+ * отображённого в память.
+ */
+public final class JournalCodec {
+
+    private static final byte FILM_SAVED = 1;
+    private static final byte FILMS_CLEARED = 2;
+    private static final byte LIKES_CHANGED = 3;
+    private static final byte USER_SAVED = 4;
+    private static final byte USERS_CLEARED = 5;
+    private static final byte FRIEND_CHANGED = 6;
+    private static final byte FILM_DELETED = 7;
+    private static final byte USER_DELETED = 8;
+
+    private JournalCodec() {
+    }
+
+    public static byte[] encode(JournalRecord record) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            switch (record) {
+                case JournalRecord.FilmSaved r -> {
+                    out.writeByte(FILM_SAVED);
+                    writeFilm(out, r.film());
+                }
+                case JournalRecord.FilmDeleted r -> {
+                    out.writeByte(FILM_DELETED);
+                    out.writeInt(r.filmId());
+                }
+                case JournalRecord.FilmsCleared r -> out.writeByte(FILMS_CLEARED);
+                case JournalRecord.LikesChanged r -> {
+                    out.writeByte(LIKES_CHANGED);
+                    out.writeInt(r.filmId());
+                    writeInts(out, r.added());
+                    writeInts(out, r.removed());
+                }
+                case JournalRecord.UserSaved r -> {
+                    out.writeByte(USER_SAVED);
+                    writeUser(out, r.user());
+                }
+                case JournalRecord.UserDeleted r -> {
+                    out.writeByte(USER_DELETED);
+                    out.writeInt(r.userId());
+                }
+                case JournalRecord.UsersCleared r -> out.writeByte(USERS_CLEARED);
+                case JournalRecord.FriendChanged r -> {
+                    out.writeByte(FRIEND_CHANGED);
+                    out.writeInt(r.userId());
+                    out.writeInt(r.friendId());
+                    out.writeBoolean(r.added());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static JournalRecord decode(ByteBuffer in) throws IOException {
+        byte type = in.get();
+        return switch (type) {
+            case FILM_SAVED -> new JournalRecord.FilmSaved(readFilm(in));
+            case FILM_DELETED -> new JournalRecord.FilmDeleted(in.getInt());
+            case FILMS_CLEARED -> new JournalRecord.FilmsCleared();
+            case LIKES_CHANGED -> new JournalRecord.LikesChanged(in.getInt(), readInts(in), readInts(in));
+            case USER_SAVED -> new JournalRecord.UserSaved(readUser(in));
+            case USER_DELETED -> new JournalRecord.UserDeleted(in.getInt());
+            case USERS_CLEARED -> new JournalRecord.UsersCleared();
+            case FRIEND_CHANGED -> new JournalRecord.FriendChanged(in.getInt(), in.getInt(), in.get() != 0);
+            default -> throw new IOException("Неизвестный тип записи журнала: " + type);
+        };
+    }
+
+    public static void writeFilm(DataOutput out, Film film) throws IOException {
+        out.writeInt(film.getId());
+        writeString(out, film.getName());
+        writeString(out, film.getDescription());
+        writeDate(out, film.getReleaseDate());
+        out.writeInt(film.getDuration());
+        writeInts(out, film.getLikes().toIntArray());
+    }
+
+    public static Film readFilm(ByteBuffer in) {
+        Film film = new Film();
+        film.setId(in.getInt());
+        film.setName(readString(in));
+        film.setDescription(readString(in));
+        film.setReleaseDate(readDate(in));
+        film.setDuration(in.getInt());
+        film.addLikes(readInts(in));
+        return film;
+    }
+
+    public static void writeUser(DataOutput out, User user) throws IOException {
+        out.writeInt(user.getId());
+        writeString(out, user.getEmail());
+        writeString(out, user.getLogin());
+        writeString(out, user.getName());
+        writeDate(out, user.getBirthday());
+        writeInts(out, user.getFriends().toIntArray());
+    }
+
+    public static User readUser(ByteBuffer in) {
+        User user = new User();
+        user.setId(in.getInt());
+        user.setEmail(readString(in));
+        user.setLogin(readString(in));
+        user.setName(readString(in));
+        user.setBirthday(readDate(in));
+        user.getFriends().addAll(readInts(in));
+        return user;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDate(DataOutput out, LocalDate date) throws IOException {
+        out.writeBoolean(date != null);
+        if (date != null) {
+            out.writeLong(date.toEpochDay());
+        }
+    }
+
+    private static LocalDate readDate(ByteBuffer in) {
+        return in.get() != 0 ? LocalDate.ofEpochDay(in.getLong()) : null;
+    }
+
+    private static void writeInts(DataOutput out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    // Массив читается одной пакетной операцией, без поэлементных вызовов
+    private static int[] readInts(ByteBuffer in) {
+        int[] values = new int[in.getInt()];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + values.length * Integer.BYTES);
+        return values;
+    }
+}
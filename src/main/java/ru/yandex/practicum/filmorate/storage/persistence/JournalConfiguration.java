@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "memory", matchIfMissing = true)
+public class JournalConfiguration {
+
+    @Bean
+    public Journal journal(JournalProperties properties) throws IOException {
+        if (!properties.isEnabled()) {
+            return Journal.NO_OP;
+        }
+        log.info("Журнал включён: {}, fsync={}", properties.getPath(), properties.getFsync());
+        return new FileJournal(properties.getPath(), properties.getFsync(), properties.getFsyncInterval(),
+                Math.toIntExact(properties.getMaxPending().toBytes()));
+    }
+}
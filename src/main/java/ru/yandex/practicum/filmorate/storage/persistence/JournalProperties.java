@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Настройки журнала (filmorate.journal.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "filmorate.journal")
+public class JournalProperties {
+    private boolean enabled = false;
+    private Path path = Path.of("data", "journal.log");
+    private FsyncPolicy fsync = FsyncPolicy.INTERVAL;
+    private Duration fsyncInterval = Duration.ofMillis(10);
+    // Сколько записей может ждать записи в файл; дальше изменения ждут диска
+    private DataSize maxPending = DataSize.ofMegabytes(16);
+}
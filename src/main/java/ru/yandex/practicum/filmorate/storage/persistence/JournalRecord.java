@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+/**
+ * Запись журнала. Все записи описывают итоговое состояние и идемпотентны:
+ * повторное применение не меняет результат, поэтому журнал можно проигрывать
+ * поверх снимка, снятого во время работы.
+ */
+public sealed interface JournalRecord {
+
+    // Фильм создан или обновлён целиком
+    record FilmSaved(Film film) implements JournalRecord {
+    }
+
+    // Все фильмы удалены
+    record FilmsCleared() implements JournalRecord {
+    }
+
+    // Фильм удалён
+    record FilmDeleted(int filmId) implements JournalRecord {
+    }
+
+    // Лайки фильма добавлены и/или удалены
+    record LikesChanged(int filmId, int[] added, int[] removed) implements JournalRecord {
+    }
+
+    // Пользователь создан или обновлён целиком
+    record UserSaved(User user) implements JournalRecord {
+    }
+
+    // Все пользователи удалены
+    record UsersCleared() implements JournalRecord {
+    }
+
+    // Пользователь удалён
+    record UserDeleted(int userId) implements JournalRecord {
+    }
+
+    // Друг добавлен или удалён (одна сторона дружбы)
+    record FriendChanged(int userId, int friendId, boolean added) implements JournalRecord {
+    }
+}
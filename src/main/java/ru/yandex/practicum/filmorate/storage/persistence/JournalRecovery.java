@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+/**
+ * Восстанавливает состояние хранилищ при старте приложения, до того как веб-сервер
+ * начнёт принимать запросы: загружает последний снимок и проигрывает хвост журнала после него.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "memory", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JournalRecovery {
+
+    private final Journal journal;
+    private final SnapshotManager snapshots;
+    private final InMemoryFilmStorage filmStorage;
+    private final InMemoryUserStorage userStorage;
+
+    @PostConstruct
+    public void recover() {
+        long snapshotSeq = snapshots.load();
+        journal.replay(snapshotSeq, this::apply);
+        snapshots.start();
+    }
+
+    void apply(JournalRecord record) {
+        switch (record) {
+            case JournalRecord.FilmSaved r -> filmStorage.restoreFilm(r.film());
+            case JournalRecord.FilmDeleted r -> filmStorage.restoreFilmDeleted(r.filmId());
+            case JournalRecord.FilmsCleared r -> filmStorage.clear();
+            case JournalRecord.LikesChanged r -> filmStorage.restoreLikes(r.filmId(), r.added(), r.removed());
+            case JournalRecord.UserSaved r -> userStorage.restoreUser(r.user());
+            case JournalRecord.UserDeleted r -> userStorage.restoreUserDeleted(r.userId());
+            case JournalRecord.UsersCleared r -> userStorage.clear();
+            case JournalRecord.FriendChanged r -> userStorage.restoreFriend(r.userId(), r.friendId(), r.added());
+        }
+    }
+}
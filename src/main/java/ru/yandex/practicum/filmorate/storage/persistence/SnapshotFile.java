@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Двоичный снимок хранилищ.
+ * <p>
+ * Формат: [long MAGIC][int версия][long номер журнала], затем фильмы и пользователи —
+ * каждая запись с байтом-маркером 1, список завершается байтом 0; в конце long CRC32C
+ * всего предшествующего содержимого. Записи кодируются так же, как в журнале.
+ * <p>
+ * Снимок пишется во временный файл и атомарно переименовывается, поэтому на диске
+ * всегда лежит целый снимок; к возврату из {@link #write} переименование сброшено на диск,
+ * и по этому снимку уже можно сжимать журнал. Читается через отображение файла в память: без копирования
+ * в буферы потока и без построчного разбора текста.
+ */
+public final class SnapshotFile {
+
+    private static final long MAGIC = 0x46494C4D534E4150L; // "FILMSNAP"
+    private static final int VERSION = 1;
+    private static final byte RECORD = 1;
+    private static final byte END = 0;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Записать снимок.
+     *
+     * @param journalSeq номер последней записи журнала, которая уже отражена в данных
+     */
+    public static void write(Path path, long journalSeq, Iterable<Film> films, Iterable<User> users)
+            throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile())) {
+            CRC32C crc = new CRC32C();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(file, crc), 256 * 1024));
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(journalSeq);
+            for (Film film : films) {
+                out.writeByte(RECORD);
+                JournalCodec.writeFilm(out, film);
+            }
+            out.writeByte(END);
+            for (User user : users) {
+                out.writeByte(RECORD);
+                JournalCodec.writeUser(out, user);
+            }
+            out.writeByte(END);
+            out.flush();
+            new DataOutputStream(file).writeLong(crc.getValue());
+            file.getChannel().force(true);
+        }
+        DurableFiles.replace(tmp, path);
+    }
+
+    /**
+     * Прочитать снимок.
+     *
+     * @return номер журнала, с которого нужно продолжить восстановление
+     * @throws IOException если файл повреждён или имеет чужой формат
+     */
+    public static long read(Path path, Consumer<Film> films, Consumer<User> users) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Снимок больше 2 ГБ не поддерживается: " + size + " байт");
+            }
+            if (size < Long.BYTES * 2 + Integer.BYTES + 2 + Long.BYTES) {
+                throw new IOException("Снимок обрезан: " + size + " байт");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int contentEnd = (int) size - Long.BYTES;
+
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(0, contentEnd));
+            if (crc.getValue() != buffer.getLong(contentEnd)) {
+                throw new IOException("Контрольная сумма снимка не совпадает");
+            }
+            if (buffer.getLong() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Неизвестный формат снимка");
+            }
+            long journalSeq = buffer.getLong();
+            try {
+                while (buffer.get() == RECORD) {
+                    films.accept(JournalCodec.readFilm(buffer));
+                }
+                while (buffer.get() == RECORD) {
+                    users.accept(JournalCodec.readUser(buffer));
+                }
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Снимок обрезан", e);
+            }
+            return journalSeq;
+        }
+    }
+}
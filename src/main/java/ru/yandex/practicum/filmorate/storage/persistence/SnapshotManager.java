@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодические снимки хранилищ в фоне.
+ * <p>
+ * Снимок не останавливает запись: сначала запоминается номер последней записи журнала,
+ * затем обходятся хранилища. Хранилища меняют данные раньше, чем ставят запись в журнал,
+ * поэтому всё до запомненного номера в снимок попадёт; более поздние изменения могут
+ * попасть частично и будут повторно применены из журнала — записи журнала идемпотентны.
+ * После записи снимка журнал сжимается до запомненного номера.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "memory", matchIfMissing = true)
+@RequiredArgsConstructor
+public class SnapshotManager {
+
+    private final SnapshotProperties properties;
+    private final Journal journal;
+    private final InMemoryFilmStorage filmStorage;
+    private final InMemoryUserStorage userStorage;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Загрузить последний снимок в хранилища.
+     *
+     * @return номер журнала, после которого нужно проигрывать записи; 0 — снимка нет
+     */
+    public long load() {
+        if (!properties.isEnabled() || !Files.exists(properties.getPath())) {
+            return 0;
+        }
+        try {
+            long started = System.nanoTime();
+            long seq = SnapshotFile.read(properties.getPath(), filmStorage::restoreFilm, userStorage::restoreUser);
+            log.info("Снимок загружен за {} мс, номер журнала {}",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), seq);
+            return seq;
+        } catch (IOException e) {
+            // Журнал мог быть сжат по этому снимку: молча стартовать без него нельзя
+            throw new UncheckedIOException("Не удалось прочитать снимок " + properties.getPath(), e);
+        }
+    }
+
+    /**
+     * Запустить периодические снимки.
+     */
+    public void start() {
+        if (!properties.isEnabled() || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "filmorate-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = properties.getInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::takeSnapshotSafely, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Записать снимок и сжать журнал.
+     *
+     * @return номер журнала, зафиксированный в снимке
+     */
+    public synchronized long takeSnapshot() throws IOException {
+        long seq = journal.lastSeq();
+        long started = System.nanoTime();
+        SnapshotFile.write(properties.getPath(), seq, filmStorage.findAll(), userStorage.findAll());
+        journal.compact(seq);
+        log.info("Снимок записан за {} мс, номер журнала {}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), seq);
+        return seq;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        takeSnapshotSafely();
+        scheduler = null;
+    }
+
+    private void takeSnapshotSafely() {
+        try {
+            takeSnapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Не удалось записать снимок", e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Настройки снимков (filmorate.snapshot.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "filmorate.snapshot")
+public class SnapshotProperties {
+    private boolean enabled = false;
+    private Path path = Path.of("data", "snapshot.bin");
+    private Duration interval = Duration.ofMinutes(5);
+}
@@ -0,0 +1,246 @@
+package ru.yandex.practicum.filmorate.storage.sharded;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.persistence.Journal;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Хранилище фильмов, разбитое на N независимых шардов по ID (filmorate.storage.type=sharded).
+ * <p>
+ * Фильм с ID живёт в шарде (ID - 1) mod N. Каждый шард — отдельное {@link InMemoryFilmStorage}
+ * со своими картой, индексами популярности, дат выхода и лайков пользователей и своим счётчиком
+ * версии, поэтому записи в фильмы разных шардов не делят ни одной ячейки памяти, за которую
+ * конкурируют CAS. Изменение лайков затрагивает ровно один шард.
+ * <p>
+ * Новый фильм попадает в шарды по кругу, а шард выдаёт ID только из своего класса вычетов:
+ * при последовательном создании ID идут подряд, как в обычном хранилище в памяти.
+ * Чтения по всему каталогу (популярные, страница, даты выхода) опрашивают все шарды
+ * и сливают их упорядоченные ответы; версия хранилища — сумма версий шардов, она растёт
+ * при любом изменении и не повторяется.
+ */
+public class ShardedFilmStorage implements FilmStorage {
+
+    private static final Comparator<Film> BY_ID = Comparator.comparingInt(Film::getId);
+
+    private final InMemoryFilmStorage[] shards;
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public ShardedFilmStorage(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Число шардов должно быть положительным: " + shardCount);
+        }
+        shards = new InMemoryFilmStorage[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new InMemoryFilmStorage(Journal.NO_OP, i + 1, shardCount);
+        }
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public Film createFilm(Film film) {
+        return shards[Math.floorMod(nextShard.getAndIncrement(), shards.length)].createFilm(film);
+    }
+
+    @Override
+    public Film updateFilm(Film film) {
+        return shard(film.getId()).updateFilm(film);
+    }
+
+    @Override
+    public List<Film> findAll() {
+        List<Film> films = new ArrayList<>();
+        for (InMemoryFilmStorage shard : shards) {
+            films.addAll(shard.findAll());
+        }
+        films.sort(BY_ID);
+        return films;
+    }
+
+    @Override
+    public List<Film> findPage(int afterId, int limit) {
+        List<List<Film>> pages = new ArrayList<>(shards.length);
+        for (InMemoryFilmStorage shard : shards) {
+            pages.add(shard.findPage(afterId, limit));
+        }
+        return merge(pages, Film::getId, Comparator.<Integer>naturalOrder(), limit);
+    }
+
+    @Override
+    public List<Film> findByReleaseDate(LocalDate from, LocalDate to, int limit) {
+        List<List<Film>> ranges = new ArrayList<>(shards.length);
+        for (InMemoryFilmStorage shard : shards) {
+            ranges.add(shard.findByReleaseDate(from, to, limit));
+        }
+        return merge(ranges, Film::getReleaseDate, Comparator.<LocalDate>naturalOrder(), limit);
+    }
+
+    @Override
+    public Film findById(int id) {
+        return shard(id).findById(id);
+    }
+
+    @Override
+    public int[] findLikedFilmIds(int userId) {
+        // Обратный индекс каждого шарда знает только свои фильмы
+        IntStream ids = IntStream.empty();
+        for (InMemoryFilmStorage shard : shards) {
+            ids = IntStream.concat(ids, Arrays.stream(shard.findLikedFilmIds(userId)));
+        }
+        return ids.sorted().toArray();
+    }
+
+    @Override
+    public boolean deleteFilm(int id) {
+        return shard(id).deleteFilm(id);
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        List<List<Integer>> byShard = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (Integer id : ids) {
+            if (id != null) {
+                byShard.get(index(id)).add(id);
+            }
+        }
+        Set<Integer> existing = new HashSet<>();
+        for (int i = 0; i < shards.length; i++) {
+            if (!byShard.get(i).isEmpty()) {
+                existing.addAll(shards[i].findExistingIds(byShard.get(i)));
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public void deleteAll() {
+        for (InMemoryFilmStorage shard : shards) {
+            shard.deleteAll();
+        }
+        nextShard.set(0);
+    }
+
+    @Override
+    public long version() {
+        long version = 0;
+        for (InMemoryFilmStorage shard : shards) {
+            version += shard.version();
+        }
+        return version;
+    }
+
+    @Override
+    public int count() {
+        int count = 0;
+        for (InMemoryFilmStorage shard : shards) {
+            count += shard.count();
+        }
+        return count;
+    }
+
+    @Override
+    public long countLikes() {
+        long likes = 0;
+        for (InMemoryFilmStorage shard : shards) {
+            likes += shard.countLikes();
+        }
+        return likes;
+    }
+
+    @Override
+    public boolean addLike(int filmId, int userId) {
+        return shard(filmId).addLike(filmId, userId);
+    }
+
+    @Override
+    public boolean removeLike(int filmId, int userId) {
+        return shard(filmId).removeLike(filmId, userId);
+    }
+
+    @Override
+    public List<Film> findPopular(int count) {
+        // Глобальный топ-K входит в объединение топ-K шардов
+        List<List<Film>> tops = new ArrayList<>(shards.length);
+        for (InMemoryFilmStorage shard : shards) {
+            tops.add(shard.findPopular(count));
+        }
+        return merge(tops, film -> film.getLikes().size(), Comparator.<Integer>reverseOrder(), count);
+    }
+
+    @Override
+    public LikeChanges applyLikes(int filmId, int[] addedUserIds, int[] removedUserIds) {
+        return shard(filmId).applyLikes(filmId, addedUserIds, removedUserIds);
+    }
+
+    /**
+     * Слияние упорядоченных ответов шардов: на каждом шаге берётся лучшая из голов списков,
+     * всего O(limit * N) сравнений вместо сортировки объединения. Ключ головы читается один
+     * раз — фильм могут менять параллельно, а сравнению нужен согласованный порядок; фильмы,
+     * у которых ключ успел стать null, пропускаются.
+     */
+    private static <K> List<Film> merge(List<List<Film>> sorted, Function<Film, K> key, Comparator<K> order,
+                                        int limit) {
+        int lists = sorted.size();
+        int[] positions = new int[lists];
+        List<K> headKeys = new ArrayList<>(lists);
+        for (int i = 0; i < lists; i++) {
+            headKeys.add(null);
+            advance(sorted.get(i), positions, headKeys, i, key, false);
+        }
+        List<Film> result = new ArrayList<>(limit);
+        while (result.size() < limit) {
+            int best = -1;
+            for (int i = 0; i < lists; i++) {
+                if (positions[i] < sorted.get(i).size()
+                        && (best < 0 || compare(sorted, positions, headKeys, i, best, order) < 0)) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            result.add(sorted.get(best).get(positions[best]));
+            advance(sorted.get(best), positions, headKeys, best, key, true);
+        }
+        return result;
+    }
+
+    private static <K> void advance(List<Film> list, int[] positions, List<K> headKeys, int i,
+                                    Function<Film, K> key, boolean skipCurrent) {
+        int position = skipCurrent ? positions[i] + 1 : positions[i];
+        K headKey = null;
+        while (position < list.size() && (headKey = key.apply(list.get(position))) == null) {
+            position++;
+        }
+        positions[i] = position;
+        headKeys.set(i, headKey);
+    }
+
+    private static <K> int compare(List<List<Film>> sorted, int[] positions, List<K> headKeys, int a, int b,
+                                   Comparator<K> order) {
+        int byKey = order.compare(headKeys.get(a), headKeys.get(b));
+        return byKey != 0 ? byKey
+                : Integer.compare(sorted.get(a).get(positions[a]).getId(), sorted.get(b).get(positions[b]).getId());
+    }
+
+    // Несуществующий ID ведёт в какой-то шард, и тот отвечает так же, как обычное хранилище
+    private InMemoryFilmStorage shard(int id) {
+        return shards[index(id)];
+    }
+
+    private int index(int id) {
+        return Math.floorMod(id - 1, shards.length);
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.storage.sharded;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+/**
+ * Шардированное хранилище в памяти: filmorate.storage.type=sharded.
+ * Журнал и снимки в этом режиме не ведутся: общий журнал снова свёл бы все записи в одну очередь.
+ */
+@Configuration
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "sharded")
+public class ShardedStorageConfiguration {
+
+    @Bean
+    public FilmStorage filmStorage(ShardedStorageProperties properties) {
+        return new ShardedFilmStorage(properties.resolveShards());
+    }
+
+    @Bean
+    public UserStorage userStorage(ShardedStorageProperties properties) {
+        return new ShardedUserStorage(properties.resolveShards());
+    }
+}
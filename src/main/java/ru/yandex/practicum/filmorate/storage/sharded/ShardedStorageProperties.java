@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.storage.sharded;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки шардированного хранилища (filmorate.storage.sharded.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "filmorate.storage.sharded")
+public class ShardedStorageProperties {
+    // Число шардов фильмов и пользователей; 0 — по числу доступных процессоров
+    private int shards = 0;
+
+    public int resolveShards() {
+        return shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+    }
+}
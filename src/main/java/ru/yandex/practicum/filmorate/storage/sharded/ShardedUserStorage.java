@@ -0,0 +1,144 @@
+package ru.yandex.practicum.filmorate.storage.sharded;
+
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.persistence.Journal;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Хранилище пользователей, разбитое на N шардов по ID (см. {@link ShardedFilmStorage}).
+ * <p>
+ * Операции, затрагивающие двух пользователей (дружба, общие друзья), могут пересекать
+ * шарды, но ни одна операция хранилища не держит больше одного монитора: дружба — это две
+ * независимые записи сторон, каждая под монитором своего пользователя в своём шарде, а
+ * общие друзья читаются без блокировок. Поэтому порядок захвата блокировок шардов не нужен
+ * и взаимоблокировка невозможна; согласованность двух сторон обеспечивает UserService.
+ */
+public class ShardedUserStorage implements UserStorage {
+
+    private static final Comparator<User> BY_ID = Comparator.comparingInt(User::getId);
+
+    private final InMemoryUserStorage[] shards;
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public ShardedUserStorage(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Число шардов должно быть положительным: " + shardCount);
+        }
+        shards = new InMemoryUserStorage[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new InMemoryUserStorage(Journal.NO_OP, i + 1, shardCount);
+        }
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public User createUser(User user) {
+        return shards[Math.floorMod(nextShard.getAndIncrement(), shards.length)].createUser(user);
+    }
+
+    @Override
+    public User updateUser(User user) {
+        return shard(user.getId()).updateUser(user);
+    }
+
+    @Override
+    public List<User> findAll() {
+        List<User> users = new ArrayList<>();
+        for (InMemoryUserStorage shard : shards) {
+            users.addAll(shard.findAll());
+        }
+        users.sort(BY_ID);
+        return users;
+    }
+
+    @Override
+    public List<User> findPage(int afterId, int limit) {
+        List<User> users = new ArrayList<>();
+        for (InMemoryUserStorage shard : shards) {
+            users.addAll(shard.findPage(afterId, limit));
+        }
+        users.sort(BY_ID);
+        return users.size() > limit ? new ArrayList<>(users.subList(0, limit)) : users;
+    }
+
+    @Override
+    public User findById(int id) {
+        return shard(id).findById(id);
+    }
+
+    @Override
+    public boolean deleteUser(int id) {
+        return shard(id).deleteUser(id);
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        List<List<Integer>> byShard = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (Integer id : ids) {
+            if (id != null) {
+                byShard.get(index(id)).add(id);
+            }
+        }
+        Set<Integer> existing = new HashSet<>();
+        for (int i = 0; i < shards.length; i++) {
+            if (!byShard.get(i).isEmpty()) {
+                existing.addAll(shards[i].findExistingIds(byShard.get(i)));
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public void deleteAll() {
+        for (InMemoryUserStorage shard : shards) {
+            shard.deleteAll();
+        }
+        nextShard.set(0);
+    }
+
+    @Override
+    public long version() {
+        long version = 0;
+        for (InMemoryUserStorage shard : shards) {
+            version += shard.version();
+        }
+        return version;
+    }
+
+    @Override
+    public int count() {
+        int count = 0;
+        for (InMemoryUserStorage shard : shards) {
+            count += shard.count();
+        }
+        return count;
+    }
+
+    @Override
+    public boolean addFriend(int userId, int friendId) {
+        return shard(userId).addFriend(userId, friendId);
+    }
+
+    @Override
+    public boolean removeFriend(int userId, int friendId) {
+        return shard(userId).removeFriend(userId, friendId);
+    }
+
+    private InMemoryUserStorage shard(int id) {
+        return shards[index(id)];
+    }
+
+    private int index(int id) {
+        return Math.floorMod(id - 1, shards.length);
+    }
+}
@@ -0,0 +1,148 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Потокобезопасные счётчики по ключам int: открытая адресация с линейным пробированием
+ * на двух массивах int, без упаковки и без узлов. Около 11 байт на запись против
+ * 60+ у ConcurrentHashMap&lt;Integer, Integer&gt;. Счётчик, дошедший до нуля, удаляется
+ * (со сдвигом следующих записей, без «надгробий»).
+ * <p>
+ * Ключ 0 зарезервирован под пустую ячейку: ID в приложении начинаются с 1.
+ */
+public class IntCountMap {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private final StampedLock lock = new StampedLock();
+    private int[] keys = new int[MIN_CAPACITY];
+    private int[] counts = new int[MIN_CAPACITY];
+    private int size;
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, int count);
+    }
+
+    /**
+     * Прибавить delta к счётчику ключа.
+     *
+     * @return новое значение счётчика (0 — запись удалена)
+     */
+    public int add(int key, int delta) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Ключ 0 зарезервирован");
+        }
+        long stamp = lock.writeLock();
+        try {
+            int slot = find(keys, key);
+            if (keys[slot] == key) {
+                int count = counts[slot] + delta;
+                if (count == 0) {
+                    removeAt(slot);
+                } else {
+                    counts[slot] = count;
+                }
+                return count;
+            }
+            if (delta == 0) {
+                return 0;
+            }
+            keys[slot] = key;
+            counts[slot] = delta;
+            if (++size > keys.length - (keys.length >> 2)) {
+                resize(keys.length << 1);
+            }
+            return delta;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int get(int key) {
+        long stamp = lock.readLock();
+        try {
+            int slot = find(keys, key);
+            return keys[slot] == key ? counts[slot] : 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Обойти записи под блокировкой чтения: записи в это время ждут.
+     */
+    public void forEach(EntryConsumer action) {
+        long stamp = lock.readLock();
+        try {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0) {
+                    action.accept(keys[i], counts[i]);
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Ячейка с ключом или первая пустая ячейка на пути пробирования
+    private static int find(int[] table, int key) {
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        while (table[slot] != 0 && table[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Удаление со сдвигом: записи, которые пробировались через освободившуюся ячейку, переезжают в неё
+    private void removeAt(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (keys[next] == 0) {
+                break;
+            }
+            int home = hash(keys[next]) & mask;
+            boolean reachable = hole <= next ? hole < home && home <= next : hole < home || home <= next;
+            if (!reachable) {
+                keys[hole] = keys[next];
+                counts[hole] = counts[next];
+                hole = next;
+            }
+        }
+        keys[hole] = 0;
+        counts[hole] = 0;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[capacity];
+        counts = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = find(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+}
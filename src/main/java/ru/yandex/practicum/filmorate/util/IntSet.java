@@ -0,0 +1,356 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntConsumer;
+
+/**
+ * Компактное потокобезопасное множество int на отсортированном массиве.
+ * <p>
+ * Хранит значения без упаковки в Integer и без узлов хеш-таблицы:
+ * около 4 байт на элемент (плюс запас ёмкости до 50%) против 40+ байт у HashSet&lt;Integer&gt;.
+ * Поиск — двоичный, O(log n); вставка и удаление сдвигают хвост массива, O(n), что для
+ * множеств лайков и друзей дешевле аллокации узла. Чтения идут без блокировок
+ * (оптимистичное чтение StampedLock), записи сериализуются.
+ * <p>
+ * Реализует {@link Set}&lt;Integer&gt;, поэтому JSON-представление (массив чисел) не меняется.
+ */
+public class IntSet extends AbstractSet<Integer> {
+
+    private static final int[] EMPTY = new int[0];
+    private static final int MIN_CAPACITY = 4;
+
+    private final StampedLock lock = new StampedLock();
+    private int[] values = EMPTY;
+    private int size;
+
+    public IntSet() {
+    }
+
+    public IntSet(Collection<Integer> source) {
+        int[] copy = source instanceof IntSet other
+                ? other.toIntArray()
+                : source.stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(copy);
+        int unique = 0;
+        for (int i = 0; i < copy.length; i++) {
+            if (i == 0 || copy[i] != copy[i - 1]) {
+                copy[unique++] = copy[i];
+            }
+        }
+        values = copy;
+        size = unique;
+    }
+
+    /**
+     * Добавить значение.
+     *
+     * @return true если значение было добавлено, false если уже было
+     */
+    public boolean add(int value) {
+        long stamp = lock.writeLock();
+        try {
+            int pos = Arrays.binarySearch(values, 0, size, value);
+            if (pos >= 0) {
+                return false;
+            }
+            int insertAt = -pos - 1;
+            if (size == values.length) {
+                int[] grown = new int[Math.max(MIN_CAPACITY, size + (size >> 1))];
+                System.arraycopy(values, 0, grown, 0, insertAt);
+                System.arraycopy(values, insertAt, grown, insertAt + 1, size - insertAt);
+                values = grown;
+            } else {
+                System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+            }
+            values[insertAt] = value;
+            size++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Удалить значение.
+     *
+     * @return true если значение было удалено, false если его не было
+     */
+    public boolean remove(int value) {
+        long stamp = lock.writeLock();
+        try {
+            int pos = Arrays.binarySearch(values, 0, size, value);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+            size--;
+            // Отдаём память, если массив заполнен меньше чем на четверть
+            if (values.length > MIN_CAPACITY && size < values.length >> 2) {
+                values = Arrays.copyOf(values, Math.max(MIN_CAPACITY, size << 1));
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Добавить значения одним слиянием отсортированных массивов, O(n + m log m).
+     *
+     * @return число действительно добавленных значений
+     */
+    public int addAll(int[] added) {
+        int[] sorted = added.clone();
+        Arrays.sort(sorted);
+        long stamp = lock.writeLock();
+        try {
+            if (size == 0 && isStrictlyIncreasing(sorted)) {
+                // Быстрый путь для загрузки из снимка/журнала: массив уже готов
+                values = sorted;
+                size = sorted.length;
+                return size;
+            }
+            int[] merged = new int[size + sorted.length];
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < size || j < sorted.length) {
+                int value = j >= sorted.length || (i < size && values[i] <= sorted[j]) ? values[i++] : sorted[j++];
+                if (k == 0 || merged[k - 1] != value) {
+                    merged[k++] = value;
+                }
+            }
+            int addedCount = k - size;
+            if (addedCount > 0) {
+                values = merged;
+                size = k;
+            }
+            return addedCount;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Удалить значения за один проход по массиву, O(n + m log m).
+     *
+     * @return число действительно удалённых значений
+     */
+    public int removeAll(int[] removed) {
+        int[] sorted = removed.clone();
+        Arrays.sort(sorted);
+        long stamp = lock.writeLock();
+        try {
+            int j = 0;
+            int k = 0;
+            for (int i = 0; i < size; i++) {
+                int value = values[i];
+                while (j < sorted.length && sorted[j] < value) {
+                    j++;
+                }
+                if (j < sorted.length && sorted[j] == value) {
+                    continue;
+                }
+                values[k++] = value;
+            }
+            int removedCount = size - k;
+            size = k;
+            if (values.length > MIN_CAPACITY && size < values.length >> 2) {
+                values = Arrays.copyOf(values, Math.max(MIN_CAPACITY, size << 1));
+            }
+            return removedCount;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean contains(int value) {
+        long stamp = lock.tryOptimisticRead();
+        int[] array = values;
+        int length = Math.min(size, array.length);
+        boolean found = Arrays.binarySearch(array, 0, length, value) >= 0;
+        if (lock.validate(stamp)) {
+            return found;
+        }
+        stamp = lock.readLock();
+        try {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Снимок значений в порядке возрастания.
+     */
+    public int[] toIntArray() {
+        long stamp = lock.tryOptimisticRead();
+        int[] array = values;
+        int[] copy = Arrays.copyOf(array, Math.min(size, array.length));
+        if (lock.validate(stamp)) {
+            return copy;
+        }
+        stamp = lock.readLock();
+        try {
+            return Arrays.copyOf(values, size);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Снимок не более чем maxCount наименьших значений.
+     */
+    public int[] toIntArray(int maxCount) {
+        long stamp = lock.tryOptimisticRead();
+        int[] array = values;
+        int[] copy = Arrays.copyOf(array, Math.min(maxCount, Math.min(size, array.length)));
+        if (lock.validate(stamp)) {
+            return copy;
+        }
+        stamp = lock.readLock();
+        try {
+            return Arrays.copyOf(values, Math.min(maxCount, size));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Пересечение с другим множеством в порядке возрастания, без копирования исходных массивов.
+     */
+    public int[] intersect(IntSet other) {
+        long stamp = lock.tryOptimisticRead();
+        long otherStamp = other.lock.tryOptimisticRead();
+        int[] array = values;
+        int[] otherArray = other.values;
+        int[] result = SortedIntArrays.intersect(array, Math.min(size, array.length),
+                otherArray, Math.min(other.size, otherArray.length));
+        if (lock.validate(stamp) && other.lock.validate(otherStamp)) {
+            return result;
+        }
+        // Параллельная запись: считаем по снимкам
+        int[] copy = toIntArray();
+        int[] otherCopy = other.toIntArray();
+        return SortedIntArrays.intersect(copy, copy.length, otherCopy, otherCopy.length);
+    }
+
+    /**
+     * Размер пересечения с другим множеством, без выделения памяти в обычном случае.
+     */
+    public int intersectionSize(IntSet other) {
+        long stamp = lock.tryOptimisticRead();
+        long otherStamp = other.lock.tryOptimisticRead();
+        int[] array = values;
+        int[] otherArray = other.values;
+        int result = SortedIntArrays.intersectionSize(array, Math.min(size, array.length),
+                otherArray, Math.min(other.size, otherArray.length));
+        if (lock.validate(stamp) && other.lock.validate(otherStamp)) {
+            return result;
+        }
+        int[] copy = toIntArray();
+        int[] otherCopy = other.toIntArray();
+        return SortedIntArrays.intersectionSize(copy, copy.length, otherCopy, otherCopy.length);
+    }
+
+    /**
+     * Обойти снимок значений без упаковки в Integer.
+     */
+    public void forEachInt(IntConsumer action) {
+        for (int value : toIntArray()) {
+            action.accept(value);
+        }
+    }
+
+    @Override
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int current = size;
+        if (lock.validate(stamp)) {
+            return current;
+        }
+        stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean add(Integer value) {
+        return add(value.intValue());
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        return value instanceof Integer i && remove(i.intValue());
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        return value instanceof Integer i && contains(i.intValue());
+    }
+
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            values = EMPTY;
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Итератор по снимку: не бросает ConcurrentModificationException при параллельных изменениях.
+     */
+    @Override
+    public Iterator<Integer> iterator() {
+        int[] snapshot = toIntArray();
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < snapshot.length;
+            }
+
+            @Override
+            public Integer next() {
+                if (next >= snapshot.length) {
+                    throw new NoSuchElementException();
+                }
+                return snapshot[next++];
+            }
+
+            @Override
+            public void remove() {
+                if (next == 0) {
+                    throw new IllegalStateException();
+                }
+                IntSet.this.remove(snapshot[next - 1]);
+            }
+        };
+    }
+
+    private static boolean isStrictlyIncreasing(int[] array) {
+        for (int i = 1; i < array.length; i++) {
+            if (array[i] <= array[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int value : toIntArray()) {
+            hash += value;
+        }
+        return hash;
+    }
+}
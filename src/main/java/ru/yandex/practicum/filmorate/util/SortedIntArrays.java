@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+
+/**
+ * Пересечение отсортированных массивов int без повторов.
+ * <p>
+ * Меньший массив перебирается, в большем ищется очередное значение. При близких размерах
+ * это обычное слияние, O(n + m); при сильном перекосе — галопирующий поиск: шаг
+ * удваивается от последней найденной позиции, затем двоичный поиск в найденном окне,
+ * O(n log(m / n)). Массивы передаются вместе с длиной заполненной части.
+ */
+public final class SortedIntArrays {
+
+    // Во сколько раз больший массив должен превосходить меньший, чтобы галоп окупился
+    private static final int GALLOP_RATIO = 16;
+
+    private SortedIntArrays() {
+    }
+
+    /**
+     * Значения, входящие в оба массива, в порядке возрастания.
+     */
+    public static int[] intersect(int[] a, int aLength, int[] b, int bLength) {
+        if (aLength > bLength) {
+            return intersect(b, bLength, a, aLength);
+        }
+        int[] result = new int[aLength];
+        int count = 0;
+        if ((long) aLength * GALLOP_RATIO < bLength) {
+            int from = 0;
+            for (int i = 0; i < aLength && from < bLength; i++) {
+                int pos = gallop(b, from, bLength, a[i]);
+                if (pos >= 0) {
+                    result[count++] = a[i];
+                    from = pos + 1;
+                } else {
+                    from = -pos - 1;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < aLength && j < bLength) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    result[count++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Размер пересечения без сборки результата: без выделения памяти.
+     */
+    public static int intersectionSize(int[] a, int aLength, int[] b, int bLength) {
+        if (aLength > bLength) {
+            return intersectionSize(b, bLength, a, aLength);
+        }
+        int count = 0;
+        if ((long) aLength * GALLOP_RATIO < bLength) {
+            int from = 0;
+            for (int i = 0; i < aLength && from < bLength; i++) {
+                int pos = gallop(b, from, bLength, a[i]);
+                if (pos >= 0) {
+                    count++;
+                    from = pos + 1;
+                } else {
+                    from = -pos - 1;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < aLength && j < bLength) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    count++;
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // Результат как у Arrays.binarySearch: позиция значения или -(точка вставки) - 1
+    private static int gallop(int[] array, int from, int to, int value) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < to && array[high] < value) {
+            low = high + 1;
+            high = from + step;
+            step <<= 1;
+        }
+        return Arrays.binarySearch(array, low, Math.min(high + 1, to), value);
+    }
+}
@@ -0,0 +1,40 @@
+-- Схема реляционного хранилища (filmorate.storage.type=h2)
+
+CREATE TABLE IF NOT EXISTS films (
+    id           INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name         VARCHAR NOT NULL,
+    description  VARCHAR,
+    release_date DATE,
+    duration     INT NOT NULL,
+    -- Денормализованное число лайков: меняется в одной транзакции со строками likes
+    likes_count  INT NOT NULL DEFAULT 0
+);
+
+-- Топ популярных читается по индексу в порядке ORDER BY likes_count DESC, id без сортировки
+CREATE INDEX IF NOT EXISTS films_by_popularity ON films (likes_count DESC, id);
+CREATE INDEX IF NOT EXISTS films_by_release_date ON films (release_date, id);
+
+CREATE TABLE IF NOT EXISTS users (
+    id       INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email    VARCHAR NOT NULL,
+    login    VARCHAR NOT NULL,
+    name     VARCHAR,
+    birthday DATE
+);
+
+-- Ссылки на пользователей (likes.user_id, friendships.friend_id) без внешнего ключа:
+-- при удалении пользователя их снимает сервис, чтобы счётчики лайков и производные
+-- модели получили события (см. UserStorage.deleteUser)
+CREATE TABLE IF NOT EXISTS likes (
+    film_id INT NOT NULL REFERENCES films (id) ON DELETE CASCADE,
+    user_id INT NOT NULL,
+    PRIMARY KEY (film_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS likes_by_user ON likes (user_id, film_id);
+
+CREATE TABLE IF NOT EXISTS friendships (
+    user_id   INT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    friend_id INT NOT NULL,
+    PRIMARY KEY (user_id, friend_id)
+);
@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Сравнение пропускной способности и хвостовых задержек при обработке запросов
+ * на потоках платформы (пул Tomcat) и на виртуальных потоках.
+ * <p>
+ * Чтобы запросы действительно блокировались на вводе-выводе, журнал включён с fsync=ALWAYS:
+ * каждый лайк ждёт сброса своей группы на диск. Запускается отдельно:
+ * {@code mvn test -Dfilmorate.stress=true -Dtest=VirtualThreadLoadTest}
+ */
+public class VirtualThreadLoadTest {
+
+    private static final int FILMS = 100;
+    private static final int CLIENTS = 1_000;
+    private static final int REQUESTS_PER_CLIENT = 40;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @EnabledIfSystemProperty(named = "filmorate.stress", matches = "true")
+    void compareThreadModes() throws Exception {
+        System.out.printf("%-10s %-10s %-12s %-10s %-10s%n", "mode", "clients", "req/s", "p50 ms", "p99 ms");
+        for (boolean virtual : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                    .properties(
+                            "server.port=0",
+                            "spring.threads.virtual.enabled=" + virtual,
+                            "filmorate.journal.enabled=true",
+                            "filmorate.journal.path=" + dir.resolve("journal-" + virtual + ".log"),
+                            "filmorate.journal.fsync=ALWAYS",
+                            "logging.level.ru.yandex.practicum.filmorate=WARN")
+                    .run()) {
+                int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+                prepareData(context);
+                run(virtual ? "virtual" : "platform", port);
+            }
+        }
+    }
+
+    private static void prepareData(ConfigurableApplicationContext context) {
+        FilmService filmService = context.getBean(FilmService.class);
+        UserService userService = context.getBean(UserService.class);
+        for (int i = 0; i < FILMS; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Описание");
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(90);
+            filmService.createFilm(film);
+        }
+        for (int i = 0; i < CLIENTS; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@mail.com");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userService.createUser(user);
+        }
+    }
+
+    private static void run(String mode, int port) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+        long started = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                int clientId = c;
+                futures.add(clients.submit(() -> {
+                    String uri = "http://localhost:" + port + "/films/" + (1 + clientId % FILMS)
+                            + "/like/" + (1 + clientId);
+                    for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                        // Лайк и снятие лайка по очереди: каждый запрос меняет данные и пишет в журнал
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(uri))
+                                .method(r % 2 == 0 ? "PUT" : "DELETE", HttpRequest.BodyPublishers.noBody())
+                                .build();
+                        long requestStarted = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[clientId * REQUESTS_PER_CLIENT + r] = System.nanoTime() - requestStarted;
+                        assertEquals(200, response.statusCode());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        Arrays.sort(latencies);
+        System.out.printf("%-10s %-10d %-12.0f %-10.1f %-10.1f%n", mode, CLIENTS, latencies.length / seconds,
+                percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(quantile * sorted.length))];
+    }
+}
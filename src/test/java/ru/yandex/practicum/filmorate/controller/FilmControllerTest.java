@@ -6,19 +6,33 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.dto.LikeOperation;
+import ru.yandex.practicum.filmorate.dto.LikeOperationResult;
+import ru.yandex.practicum.filmorate.exception.OverloadedException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmSearchService;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikePipeline;
+import ru.yandex.practicum.filmorate.service.TrendingService;
+import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(FilmController.class)
+@Import({ResponseBytesCache.class, ResponseCacheProperties.class})
+// Сервисы подменены и не публикуют событий: кэш ответов выключен
+@WebMvcTest(value = FilmController.class, properties = "filmorate.response-cache.max-entries=0")
 public class FilmControllerTest {
 
     @Autowired
@@ -30,6 +44,19 @@ public class FilmControllerTest {
     @MockBean
     private FilmService filmService;
 
+    @MockBean
+    private FilmSearchService filmSearchService;
+
+    @MockBean
+    private LikePipeline likePipeline;
+
+    @MockBean
+    private TrendingService trendingService;
+
+    // Нужен кэшу ответов для сброса пользовательских записей
+    @MockBean
+    private UserService userService;
+
     private Film film;
 
     @BeforeEach
@@ -185,4 +212,139 @@ public class FilmControllerTest {
                 .andExpect(jsonPath("$[1].id").value(2));
     }
 
+    @Test
+    void shouldReturnFilmPageWhenCursorGiven() throws Exception {
+        // Постраничная выдача по курсору
+        when(filmService.findPage(1, 5)).thenReturn(List.of(film));
+
+        mockMvc.perform(get("/films").param("after", "1").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+
+        verify(filmService).findPage(1, 5);
+        verify(filmService, never()).findAll();
+    }
+
+    @Test
+    void shouldReturnFilmsInReleaseDateRange() throws Exception {
+        when(filmService.findByReleaseDate(LocalDate.of(2014, 1, 1), LocalDate.of(2014, 12, 31), Integer.MAX_VALUE))
+                .thenReturn(List.of(film));
+
+        mockMvc.perform(get("/films").param("releasedFrom", "2014-01-01").param("releasedTo", "2014-12-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1));
+
+        mockMvc.perform(get("/films").param("releasedFrom", "2014-01-01").param("after", "1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldApplyLikeBatch() throws Exception {
+        // Пакетная загрузка лайков
+        List<LikeOperation> batch = List.of(
+                new LikeOperation(1, 1, LikeOperation.Type.ADD),
+                new LikeOperation(2, 1, LikeOperation.Type.REMOVE));
+        when(filmService.applyLikeBatch(batch)).thenReturn(List.of(
+                LikeOperationResult.ok(batch.get(0)),
+                LikeOperationResult.failed(batch.get(1), "Фильм с id=2 не найден.")));
+
+        mockMvc.perform(post("/films/likes/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].success").value(true))
+                .andExpect(jsonPath("$[1].success").value(false))
+                .andExpect(jsonPath("$[1].error").value("Фильм с id=2 не найден."));
+    }
+
+    @Test
+    void shouldAcceptLikesAsynchronouslyAndReportOverload() throws Exception {
+        when(likePipeline.isEnabled()).thenReturn(true);
+
+        mockMvc.perform(put("/films/1/like/2")).andExpect(status().isAccepted());
+        mockMvc.perform(delete("/films/1/like/2")).andExpect(status().isAccepted());
+        verify(likePipeline).submit(1, 2, LikeOperation.Type.ADD);
+        verify(likePipeline).submit(1, 2, LikeOperation.Type.REMOVE);
+        verify(filmService, never()).addLike(anyInt(), anyInt());
+
+        doThrow(new OverloadedException("Очередь лайков заполнена, повторите запрос позже."))
+                .when(likePipeline).submit(1, 3, LikeOperation.Type.ADD);
+        mockMvc.perform(put("/films/1/like/3"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    void shouldReturnTrendingFilmsForWindow() throws Exception {
+        when(trendingService.getTrendingFilms(TrendingService.Window.HOUR, 5)).thenReturn(List.of(film));
+
+        mockMvc.perform(get("/films/trending").param("window", "1h").param("count", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1));
+        mockMvc.perform(get("/films/trending").param("window", "30d"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldStreamFilmsAsNdjson() throws Exception {
+        Film second = new Film();
+        second.setId(2);
+        second.setName("Second");
+        second.setReleaseDate(LocalDate.of(2001, 1, 1));
+        second.setDuration(90);
+        doAnswer(invocation -> {
+            Consumer<Film> action = invocation.getArgument(0);
+            action.accept(film);
+            action.accept(second);
+            return null;
+        }).when(filmService).forEachFilm(any());
+
+        MvcResult result = mockMvc.perform(get("/films/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(body.endsWith("\n"));
+        assertTrue(lines[1].startsWith("{"), "Между строками не должно быть разделителей: " + lines[1]);
+        assertEquals(1, mapper.readValue(lines[0], Film.class).getId());
+        assertEquals("Second", mapper.readValue(lines[1], Film.class).getName());
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWithoutBuildingBodyWhileVersionUnchanged() throws Exception {
+        when(filmService.version()).thenReturn(7L);
+        when(filmService.getPopularFilms(10)).thenReturn(List.of(film));
+
+        String etag = mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andReturn().getResponse().getHeader("ETag");
+        assertTrue(etag != null && etag.startsWith("\"") && etag.endsWith("-7\""), etag);
+
+        mockMvc.perform(get("/films/popular").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+        verify(filmService, times(1)).getPopularFilms(10);
+
+        when(filmService.version()).thenReturn(8L);
+        mockMvc.perform(get("/films/popular").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1));
+        verify(filmService, times(2)).getPopularFilms(10);
+    }
+
+    @Test
+    void shouldSearchFilms() throws Exception {
+        when(filmSearchService.search("интер", 5)).thenReturn(List.of(film));
+
+        mockMvc.perform(get("/films/search").param("query", "интер").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1));
+    }
 }
@@ -1,26 +1,39 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dto.LikeOperation;
+import ru.yandex.practicum.filmorate.dto.LikeOperationResult;
+import ru.yandex.practicum.filmorate.event.LikesChangedEvent;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
 import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class FilmServiceTest {
 
     private FilmService filmService;
+    private InMemoryUserStorage userStorage;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     void setUp() {
-        filmService = new FilmService(new InMemoryFilmStorage(), new InMemoryUserStorage());
+        userStorage = new InMemoryUserStorage();
+        meterRegistry = new SimpleMeterRegistry();
+        filmService = new FilmService(new InMemoryFilmStorage(), userStorage, meterRegistry, event -> {
+        });
     }
 
     @Test
@@ -100,4 +113,244 @@ public class FilmServiceTest {
         assertTrue(ex.getMessage().contains("Фильм с id=" + missingId + " не найден."));
     }
 
+    @Test
+    void shouldReturnPopularFilmsOrderedByLikes() {
+        Film f1 = filmService.createFilm(createTestFilm("F1"));
+        Film f2 = filmService.createFilm(createTestFilm("F2"));
+        Film f3 = filmService.createFilm(createTestFilm("F3"));
+        User u1 = createTestUser("u1");
+        User u2 = createTestUser("u2");
+
+        filmService.addLike(f2.getId(), u1.getId());
+        filmService.addLike(f2.getId(), u2.getId());
+        filmService.addLike(f3.getId(), u1.getId());
+
+        List<Film> popular = filmService.getPopularFilms(10);
+        assertEquals(List.of(f2.getId(), f3.getId(), f1.getId()),
+                popular.stream().map(Film::getId).toList());
+        assertEquals(1, filmService.getPopularFilms(1).size());
+    }
+
+    @Test
+    void shouldUpdatePopularityWhenLikeRemoved() {
+        Film f1 = filmService.createFilm(createTestFilm("F1"));
+        Film f2 = filmService.createFilm(createTestFilm("F2"));
+        User u1 = createTestUser("u1");
+        User u2 = createTestUser("u2");
+
+        filmService.addLike(f1.getId(), u1.getId());
+        filmService.addLike(f2.getId(), u1.getId());
+        filmService.addLike(f2.getId(), u2.getId());
+        filmService.removeLike(f2.getId(), u1.getId());
+        filmService.removeLike(f2.getId(), u2.getId());
+
+        assertEquals(f1.getId(), filmService.getPopularFilms(1).get(0).getId());
+        assertEquals(0, filmService.findById(f2.getId()).getLikes().size());
+    }
+
+    @Test
+    void shouldRejectNegativePopularCount() {
+        assertThrows(ValidationException.class, () -> filmService.getPopularFilms(-1));
+    }
+
+    private User createTestUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return userStorage.createUser(user);
+    }
+
+    @Test
+    void shouldPageFilmsByIdCursor() {
+        for (int i = 1; i <= 5; i++) {
+            filmService.createFilm(createTestFilm("F" + i));
+        }
+
+        List<Film> first = filmService.findPage(0, 2);
+        assertEquals(List.of(1, 2), first.stream().map(Film::getId).toList());
+
+        List<Film> second = filmService.findPage(first.get(1).getId(), 2);
+        assertEquals(List.of(3, 4), second.stream().map(Film::getId).toList());
+
+        List<Film> last = filmService.findPage(4, 2);
+        assertEquals(List.of(5), last.stream().map(Film::getId).toList());
+        assertTrue(filmService.findPage(5, 2).isEmpty());
+    }
+
+    @Test
+    void shouldRejectInvalidPageLimit() {
+        assertThrows(ValidationException.class, () -> filmService.findPage(0, 0));
+        assertThrows(ValidationException.class, () -> filmService.findPage(0, 1001));
+        assertThrows(ValidationException.class, () -> filmService.findPage(-1, 10));
+    }
+
+    @Test
+    void shouldFindFilmsByReleaseDateRangeAndFollowUpdates() {
+        Film f1 = createTestFilm("F1");
+        f1.setReleaseDate(LocalDate.of(1999, 3, 31));
+        Film f2 = createTestFilm("F2");
+        f2.setReleaseDate(LocalDate.of(1960, 5, 1));
+        Film f3 = createTestFilm("F3");
+        f3.setReleaseDate(LocalDate.of(2010, 7, 16));
+        filmService.createFilm(f1);
+        filmService.createFilm(f2);
+        filmService.createFilm(f3);
+
+        assertEquals(List.of(f2.getId(), f1.getId()), ids(filmService.findByReleaseDate(
+                LocalDate.of(1960, 5, 1), LocalDate.of(1999, 3, 31), 10)));
+        assertEquals(List.of(f1.getId(), f3.getId()), ids(filmService.findByReleaseDate(
+                LocalDate.of(1970, 1, 1), null, 10)));
+        assertEquals(List.of(f2.getId()), ids(filmService.findByReleaseDate(null, null, 1)));
+
+        Film update = new Film();
+        update.setId(f3.getId());
+        update.setReleaseDate(LocalDate.of(1950, 1, 1));
+        filmService.updateFilmCustomValidation(update);
+        assertEquals(List.of(f3.getId(), f2.getId()), ids(filmService.findByReleaseDate(
+                null, LocalDate.of(1969, 12, 31), 10)));
+        assertEquals(List.of(f1.getId()), ids(filmService.findByReleaseDate(
+                LocalDate.of(1970, 1, 1), null, 10)));
+    }
+
+    @Test
+    void shouldBumpVersionOnEveryChange() {
+        long initial = filmService.version();
+        Film film = filmService.createFilm(createTestFilm("F1"));
+        long created = filmService.version();
+        assertTrue(created > initial);
+
+        filmService.addLike(film.getId(), createTestUser("u1").getId());
+        long liked = filmService.version();
+        assertTrue(liked > created);
+
+        filmService.findAll();
+        filmService.getPopularFilms(10);
+        assertEquals(liked, filmService.version(), "Чтения не меняют версию");
+    }
+
+    @Test
+    void shouldDeleteFilmWithItsLikes() {
+        Film f1 = filmService.createFilm(createTestFilm("F1"));
+        Film f2 = filmService.createFilm(createTestFilm("F2"));
+        User user = createTestUser("u1");
+        filmService.addLike(f1.getId(), user.getId());
+        filmService.addLike(f2.getId(), user.getId());
+
+        filmService.deleteFilm(f1.getId());
+
+        assertThrows(NotFoundException.class, () -> filmService.findById(f1.getId()));
+        assertEquals(List.of(f2.getId()), ids(filmService.getLikedFilms(user.getId())));
+        assertEquals(List.of(f2.getId()), ids(filmService.getPopularFilms(10)));
+        assertThrows(NotFoundException.class, () -> filmService.addLike(f1.getId(), user.getId()));
+        assertThrows(NotFoundException.class, () -> filmService.deleteFilm(f1.getId()));
+    }
+
+    @Test
+    void shouldRejectInvertedReleaseDateRange() {
+        assertThrows(ValidationException.class, () -> filmService.findByReleaseDate(
+                LocalDate.of(2000, 1, 2), LocalDate.of(2000, 1, 1), 10));
+    }
+
+    private static List<Integer> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+
+    @Test
+    void shouldApplyLikeBatchAndReportEachItem() {
+        Film f1 = filmService.createFilm(createTestFilm("F1"));
+        Film f2 = filmService.createFilm(createTestFilm("F2"));
+        User u1 = createTestUser("u1");
+        User u2 = createTestUser("u2");
+
+        List<LikeOperationResult> results = filmService.applyLikeBatch(List.of(
+                new LikeOperation(f1.getId(), u1.getId(), LikeOperation.Type.ADD),
+                new LikeOperation(f1.getId(), u2.getId(), LikeOperation.Type.ADD),
+                new LikeOperation(f2.getId(), u1.getId(), LikeOperation.Type.ADD),
+                new LikeOperation(f2.getId(), u1.getId(), LikeOperation.Type.REMOVE), // отменяет предыдущий
+                new LikeOperation(999, u1.getId(), LikeOperation.Type.ADD),
+                new LikeOperation(f1.getId(), 999, LikeOperation.Type.ADD),
+                new LikeOperation(f1.getId(), u1.getId(), null)));
+
+        assertEquals(List.of(true, true, true, true, false, false, false),
+                results.stream().map(LikeOperationResult::isSuccess).toList());
+        assertEquals("Фильм с id=999 не найден.", results.get(4).getError());
+        assertEquals(Set.of(u1.getId(), u2.getId()), filmService.findById(f1.getId()).getLikes());
+        assertTrue(filmService.findById(f2.getId()).getLikes().isEmpty());
+        assertEquals(f1.getId(), filmService.getPopularFilms(1).get(0).getId());
+    }
+
+    @Test
+    void shouldReportAppliedBatchWhenFilmIsDeletedDuringRollback() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        // Пользователя и фильм удаляют после применения пачки, пока идёт откат его лайка
+        InMemoryUserStorage users = new InMemoryUserStorage() {
+            @Override
+            public User findById(int id) {
+                User user = super.findById(id);
+                if (user != null && "doomed".equals(user.getLogin()) && filmStorage.findById(1) != null) {
+                    deleteUser(id);
+                    filmStorage.deleteFilm(1);
+                    return null;
+                }
+                return user;
+            }
+        };
+        List<Object> events = new ArrayList<>();
+        FilmService service = new FilmService(filmStorage, users, meterRegistry, events::add);
+        int filmId = filmStorage.createFilm(createTestFilm("F1")).getId();
+        User doomed = new User();
+        doomed.setEmail("doomed@mail.com");
+        doomed.setLogin("doomed");
+        doomed.setBirthday(LocalDate.of(1990, 1, 1));
+        int userId = users.createUser(doomed).getId();
+
+        List<LikeOperationResult> results = service.applyLikeBatch(List.of(
+                new LikeOperation(filmId, userId, LikeOperation.Type.ADD)));
+
+        assertTrue(results.get(0).isSuccess(), "Пачка применена до удаления фильма");
+        assertEquals(1, events.size(), "Событие о применённой пачке публикуется");
+        LikesChangedEvent event = (LikesChangedEvent) events.get(0);
+        assertEquals(filmId, event.filmId());
+        assertArrayEquals(new int[]{userId}, event.userIds());
+        assertEquals(1, event.delta());
+        assertEquals(1, meterRegistry.get("filmorate.likes").tag("op", "add").counter().count());
+    }
+
+    @Test
+    void shouldRecordLikeAndPopularityMetrics() {
+        Film f1 = filmService.createFilm(createTestFilm("F1"));
+        filmService.createFilm(createTestFilm("F2"));
+        User u1 = createTestUser("u1");
+        User u2 = createTestUser("u2");
+        filmService.addLike(f1.getId(), u1.getId());
+        filmService.addLike(f1.getId(), u2.getId());
+        filmService.removeLike(f1.getId(), u2.getId());
+        // Повторный лайк и снятие отсутствующего лайка ничего не меняют и не считаются
+        filmService.addLike(f1.getId(), u1.getId());
+        filmService.removeLike(f1.getId(), u2.getId());
+        // В пачке считаются только применённые изменения: u1 уже лайкнул, лайка u2 нет
+        filmService.applyLikeBatch(List.of(
+                new LikeOperation(f1.getId(), u1.getId(), LikeOperation.Type.ADD),
+                new LikeOperation(f1.getId(), u2.getId(), LikeOperation.Type.REMOVE)));
+        filmService.getPopularFilms(10);
+
+        assertEquals(2, meterRegistry.get("filmorate.likes").tag("op", "add").counter().count());
+        assertEquals(1, meterRegistry.get("filmorate.likes").tag("op", "remove").counter().count());
+        assertEquals(1, meterRegistry.get("filmorate.films.popular").timer().count());
+        assertEquals(2, meterRegistry.get("filmorate.films").gauge().value());
+        assertEquals(0.5, meterRegistry.get("filmorate.films.likes.avg").gauge().value());
+    }
+
+    @Test
+    void shouldVisitAllFilmsPageByPage() {
+        for (int i = 0; i < 2_500; i++) {
+            filmService.createFilm(createTestFilm("F" + i));
+        }
+        List<Integer> visited = new ArrayList<>();
+        filmService.forEachFilm(film -> visited.add(film.getId()));
+
+        assertEquals(2_500, visited.size());
+        assertEquals(IntStream.rangeClosed(1, 2_500).boxed().toList(), visited);
+    }
 }
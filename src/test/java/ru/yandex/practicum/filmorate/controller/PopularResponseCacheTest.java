@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmSearchService;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikePipeline;
+import ru.yandex.practicum.filmorate.service.TrendingService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Популярные фильмы через контроллер с включённым кэшем ответов маленького размера.
+ */
+@Import({ResponseBytesCache.class, ResponseCacheProperties.class})
+@WebMvcTest(value = FilmController.class, properties = "filmorate.response-cache.max-entries=2")
+public class PopularResponseCacheTest {
+
+    private static final int REQUESTS = 20;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private FilmService filmService;
+
+    @MockBean
+    private FilmSearchService filmSearchService;
+
+    @MockBean
+    private LikePipeline likePipeline;
+
+    @MockBean
+    private TrendingService trendingService;
+
+    // Нужен кэшу ответов для сброса пользовательских записей
+    @MockBean
+    private UserService userService;
+
+    @Test
+    void shouldCacheNewCountAfterCacheIsFull() throws Exception {
+        Film film = new Film();
+        film.setId(1);
+        film.setName("Interstellar");
+        film.setReleaseDate(LocalDate.of(2014, 11, 7));
+        film.setDuration(169);
+        when(filmService.version()).thenReturn(7L);
+        when(filmService.getPopularFilms(anyInt())).thenReturn(List.of(film));
+
+        mockMvc.perform(get("/films/popular").param("count", "1")).andExpect(status().isOk());
+        mockMvc.perform(get("/films/popular").param("count", "2")).andExpect(status().isOk());
+        verify(filmService).getPopularFilms(1);
+        verify(filmService).getPopularFilms(2);
+
+        // Кэш заполнен: новый частый ключ всё равно начинает отдаваться из кэша
+        for (int i = 0; i < REQUESTS; i++) {
+            mockMvc.perform(get("/films/popular").param("count", "3"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].id").value(1));
+        }
+        verify(filmService, atMost(REQUESTS - 1)).getPopularFilms(3);
+    }
+}
@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.event.FriendshipChangedEvent;
+import ru.yandex.practicum.filmorate.event.UserSavedEvent;
+import ru.yandex.practicum.filmorate.event.UsersClearedEvent;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты кэша готовых JSON-ответов: попадания и точный сброс по событиям.
+ */
+public class ResponseBytesCacheTest {
+
+    private UserService userService;
+    private ResponseBytesCache cache;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        ResponseBytesCache[] holder = new ResponseBytesCache[1];
+        userService = new UserService(userStorage, new SimpleMeterRegistry(), event -> {
+            if (event instanceof UserSavedEvent saved) {
+                holder[0].onUserSaved(saved);
+            } else if (event instanceof FriendshipChangedEvent changed) {
+                holder[0].onFriendshipChanged(changed);
+            } else if (event instanceof UsersClearedEvent cleared) {
+                holder[0].onUsersCleared(cleared);
+            }
+        });
+        cache = new ResponseBytesCache(new ObjectMapper().registerModule(new JavaTimeModule()), userService,
+                new ResponseCacheProperties());
+        holder[0] = cache;
+    }
+
+    @Test
+    void shouldServeSameBytesUntilUserChanges() {
+        User user = userService.createUser(createUser("u1"));
+        byte[] first = user(user.getId());
+        assertSame(first, user(user.getId()), "Попадание не должно сериализовать заново");
+
+        User update = new User();
+        update.setId(user.getId());
+        update.setName("Новое имя");
+        userService.updateUserCustomValidation(update);
+        assertTrue(json(user(user.getId())).contains("Новое имя"));
+    }
+
+    @Test
+    void shouldInvalidateFriendsListWhenFriendOrFriendshipChanges() {
+        User u1 = userService.createUser(createUser("u1"));
+        User u2 = userService.createUser(createUser("u2"));
+        User u3 = userService.createUser(createUser("u3"));
+        User stranger = userService.createUser(createUser("stranger"));
+        userService.addFriend(u1.getId(), u2.getId());
+        byte[] friends = friends(u1.getId());
+        byte[] strangerJson = user(stranger.getId());
+
+        // Друг сменил имя: список друзей u1 устарел, чужие записи — нет
+        User update = new User();
+        update.setId(u2.getId());
+        update.setName("Переименован");
+        userService.updateUserCustomValidation(update);
+        assertTrue(json(friends(u1.getId())).contains("Переименован"));
+        assertSame(strangerJson, user(stranger.getId()));
+
+        // У друга появился новый друг: меняется его список друзей внутри ответа для u1
+        friends = friends(u1.getId());
+        userService.addFriend(u2.getId(), u3.getId());
+        assertNotSame(friends, friends(u1.getId()));
+
+        userService.removeFriend(u1.getId(), u2.getId());
+        assertEquals("[]", json(friends(u1.getId())));
+        assertSame(strangerJson, user(stranger.getId()));
+    }
+
+    @Test
+    void shouldKeyVersionedEntriesByVersion() {
+        byte[] first = cache.get("popular:10", 1, () -> "v1");
+        assertSame(first, cache.get("popular:10", 1, () -> "другое"));
+        assertEquals("\"v2\"", json(cache.get("popular:10", 2, () -> "v2")));
+    }
+
+    @Test
+    void shouldKeepCachingHotKeysAfterCacheIsFull() {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setMaxEntries(2);
+        ResponseBytesCache small = new ResponseBytesCache(new ObjectMapper(), userService, properties);
+        small.get("popular:1", 1, () -> "1");
+        small.get("popular:2", 1, () -> "2");
+
+        // Кэш заполнен; часто запрашиваемый новый ключ вытесняет редкий и начинает попадать
+        AtomicInteger built = new AtomicInteger();
+        for (int i = 0; i < 20; i++) {
+            small.get("popular:3", 1, () -> "3" + built.incrementAndGet());
+        }
+        assertTrue(built.get() < 20, "Новый ключ так и не попал в заполненный кэш");
+        byte[] cached = small.get("popular:3", 1, () -> "другое");
+        assertSame(cached, small.get("popular:3", 1, () -> "другое"));
+    }
+
+    private byte[] user(int id) {
+        return cache.get(ResponseBytesCache.userKey(id), () -> userService.findById(id));
+    }
+
+    private byte[] friends(int id) {
+        return cache.get(ResponseBytesCache.friendsKey(id), () -> userService.getFriends(id));
+    }
+
+    private static String json(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static User createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -5,9 +5,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmRecommendationService;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikePipeline;
+import ru.yandex.practicum.filmorate.service.FriendSuggestionService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.time.LocalDate;
@@ -21,7 +26,9 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 
-@WebMvcTest(UserController.class)
+@Import({ResponseBytesCache.class, ResponseCacheProperties.class})
+// Сервисы подменены и не публикуют событий: кэш ответов выключен
+@WebMvcTest(value = UserController.class, properties = "filmorate.response-cache.max-entries=0")
 public class UserControllerTest {
 
     @Autowired
@@ -33,6 +40,18 @@ public class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private FriendSuggestionService friendSuggestionService;
+
+    @MockBean
+    private FilmRecommendationService filmRecommendationService;
+
+    @MockBean
+    private FilmService filmService;
+
+    @MockBean
+    private LikePipeline likePipeline;
+
     @Test
     void shouldFailWithInvalidEmail() throws Exception {
         // Ошибка: неверный email
@@ -5,9 +5,17 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.dto.FriendSuggestion;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmRecommendationService;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikePipeline;
+import ru.yandex.practicum.filmorate.service.FriendSuggestionService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.time.LocalDate;
@@ -21,7 +29,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 /**
  * Тесты для управления друзьями пользователей
  */
-@WebMvcTest(UserController.class)
+@Import({ResponseBytesCache.class, ResponseCacheProperties.class})
+// Сервисы подменены и не публикуют событий: кэш ответов выключен
+@WebMvcTest(value = UserController.class, properties = "filmorate.response-cache.max-entries=0")
 public class UserFriendshipControllerTest {
 
     @Autowired
@@ -33,6 +43,18 @@ public class UserFriendshipControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private FriendSuggestionService friendSuggestionService;
+
+    @MockBean
+    private FilmRecommendationService filmRecommendationService;
+
+    @MockBean
+    private FilmService filmService;
+
+    @MockBean
+    private LikePipeline likePipeline;
+
     @Test
     void shouldAddAndRemoveFriendsCorrectly() throws Exception {
         User user1 = new User();
@@ -92,4 +114,61 @@ public class UserFriendshipControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].id").value(3));
     }
+
+    @Test
+    void shouldCountCommonFriends() throws Exception {
+        when(userService.countCommonFriends(1, 2)).thenReturn(5);
+
+        mockMvc.perform(get("/users/1/friends/common/2/count"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("5"));
+    }
+
+    @Test
+    void shouldReturnFriendSuggestions() throws Exception {
+        User suggested = new User();
+        suggested.setId(4);
+        suggested.setEmail("s@mail.com");
+        suggested.setLogin("s");
+        suggested.setName("s");
+        suggested.setBirthday(LocalDate.of(1993, 1, 1));
+
+        when(friendSuggestionService.getSuggestions(1, 5)).thenReturn(List.of(new FriendSuggestion(suggested, 2)));
+
+        mockMvc.perform(get("/users/1/suggestions").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].user.id").value(4))
+                .andExpect(jsonPath("$[0].mutualFriends").value(2));
+    }
+
+    @Test
+    void shouldDeleteUserAndListLikedFilms() throws Exception {
+        Film film = new Film();
+        film.setId(5);
+        film.setName("Film");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(90);
+        when(filmService.getLikedFilms(1)).thenReturn(List.of(film));
+        when(likePipeline.awaitApplied(1)).thenReturn(true);
+        doThrow(new NotFoundException("Пользователь не найден")).when(userService).deleteUser(2);
+
+        mockMvc.perform(get("/users/1/likes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(5));
+        mockMvc.perform(delete("/users/1"))
+                .andExpect(status().isOk());
+        verify(userService).deleteUser(1);
+        mockMvc.perform(delete("/users/2"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldAnswer503WhenOwnLikesAreNotAppliedInTime() throws Exception {
+        when(likePipeline.awaitApplied(1)).thenReturn(false);
+
+        mockMvc.perform(get("/users/1/likes"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+        verify(filmService, never()).getLikedFilms(anyInt());
+    }
 }
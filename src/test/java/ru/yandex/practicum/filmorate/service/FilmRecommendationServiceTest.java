@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dto.LikeOperation;
+import ru.yandex.practicum.filmorate.event.LikesChangedEvent;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты рекомендаций фильмов.
+ */
+public class FilmRecommendationServiceTest {
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private FilmService filmService;
+    private FilmRecommendationService recommendationService;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        recommendationService = new FilmRecommendationService(filmStorage, userStorage,
+                new RecommendationProperties());
+        filmService = new FilmService(filmStorage, userStorage, new SimpleMeterRegistry(), event -> {
+            if (event instanceof LikesChangedEvent changed) {
+                recommendationService.onLikesChanged(changed);
+            }
+        });
+        for (int i = 1; i <= 4; i++) {
+            User user = new User();
+            user.setEmail("u" + i + "@mail.com");
+            user.setLogin("u" + i);
+            user.setBirthday(LocalDate.of(1990, 1, i));
+            userStorage.createUser(user);
+
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Описание");
+            film.setReleaseDate(LocalDate.of(2000, 1, i));
+            film.setDuration(90);
+            filmStorage.createFilm(film);
+        }
+    }
+
+    @Test
+    void shouldRecommendFilmsLikedByUsersWithOverlappingTaste() {
+        // Пользователи 2 и 3 тоже любят фильм 1; фильм 3 нравится обоим, фильм 4 — только одному
+        filmService.addLike(1, 1);
+        filmService.addLike(1, 2);
+        filmService.addLike(3, 2);
+        filmService.addLike(1, 3);
+        filmService.addLike(3, 3);
+        filmService.addLike(4, 3);
+
+        assertEquals(List.of(3, 4), ids(recommendationService.getRecommendations(1, 10)));
+        assertEquals(List.of(3), ids(recommendationService.getRecommendations(1, 1)));
+    }
+
+    @Test
+    void shouldUpdateModelIncrementallyOnUnlikeAndBatch() {
+        filmService.addLike(1, 1);
+        filmService.addLike(1, 2);
+        filmService.addLike(2, 2);
+        assertEquals(List.of(2), ids(recommendationService.getRecommendations(1, 10)));
+
+        filmService.removeLike(2, 2);
+        filmService.applyLikeBatch(List.of(new LikeOperation(4, 2, LikeOperation.Type.ADD)));
+        assertEquals(List.of(4), ids(recommendationService.getRecommendations(1, 10)));
+
+        // Пользователь сам лайкнул рекомендованный фильм — он пропадает из выдачи
+        filmService.addLike(4, 1);
+        assertFalse(ids(recommendationService.getRecommendations(1, 10)).contains(4));
+    }
+
+    @Test
+    void shouldBuildModelFromExistingLikesAndFallBackToPopular() {
+        filmStorage.addLike(2, 1);
+        filmStorage.addLike(2, 2);
+        filmStorage.addLike(3, 2);
+        recommendationService.afterSingletonsInstantiated();
+
+        assertEquals(List.of(3), ids(recommendationService.getRecommendations(1, 10)));
+        // Без лайков — популярные фильмы
+        assertEquals(2, recommendationService.getRecommendations(4, 1).get(0).getId());
+    }
+
+    @Test
+    void shouldValidateRequest() {
+        assertThrows(ValidationException.class, () -> recommendationService.getRecommendations(1, 0));
+        assertThrows(NotFoundException.class, () -> recommendationService.getRecommendations(999, 10));
+    }
+
+    private static List<Integer> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+}
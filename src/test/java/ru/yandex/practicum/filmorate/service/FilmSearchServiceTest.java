@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import ru.yandex.practicum.filmorate.event.FilmSavedEvent;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты полнотекстового поиска фильмов.
+ * <p>
+ * Замер задержки на миллионе фильмов запускается отдельно:
+ * {@code mvn test -Dfilmorate.stress=true -Dtest=FilmSearchServiceTest}
+ */
+public class FilmSearchServiceTest {
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private FilmService filmService;
+    private FilmSearchService searchService;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        searchService = new FilmSearchService(filmStorage);
+        filmService = new FilmService(filmStorage, userStorage, new SimpleMeterRegistry(), event -> {
+            if (event instanceof FilmSavedEvent saved) {
+                searchService.onFilmSaved(saved);
+            }
+        });
+    }
+
+    @Test
+    void shouldMatchExactPrefixAndTypo() {
+        Film interstellar = filmService.createFilm(createFilm("Интерстеллар", "Путешествие сквозь червоточину"));
+        Film matrix = filmService.createFilm(createFilm("Матрица", "Хакер узнаёт правду о мире"));
+
+        assertEquals(List.of(matrix.getId()), ids(searchService.search("матрица", 10)));
+        assertEquals(List.of(interstellar.getId()), ids(searchService.search("интерс", 10)));
+        assertEquals(List.of(interstellar.getId()), ids(searchService.search("Интерстелар", 10)));
+        assertEquals(List.of(matrix.getId()), ids(searchService.search("узнает", 10)), "ё и е не различаются");
+        assertEquals(List.of(), ids(searchService.search("матрица червоточину", 10)), "Нужны все слова запроса");
+    }
+
+    @Test
+    void shouldRankNameAboveDescriptionAndThenByLikes() {
+        Film inDescription = filmService.createFilm(createFilm("Дюна", "Космос и пески"));
+        Film inName = filmService.createFilm(createFilm("Космос", "Документальный фильм"));
+        Film popular = filmService.createFilm(createFilm("Космос 2", "Продолжение"));
+        User user = new User();
+        user.setEmail("u@mail.com");
+        user.setLogin("u");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        userStorage.createUser(user);
+        filmService.addLike(popular.getId(), user.getId());
+
+        assertEquals(List.of(popular.getId(), inName.getId(), inDescription.getId()),
+                ids(searchService.search("космос", 10)));
+        assertEquals(List.of(popular.getId()), ids(searchService.search("космос", 1)));
+    }
+
+    @Test
+    void shouldReindexOnUpdateAndBuildOnStartup() {
+        Film film = filmService.createFilm(createFilm("Старое название", "Описание"));
+        Film update = new Film();
+        update.setId(film.getId());
+        update.setName("Новое название");
+        filmService.updateFilmCustomValidation(update);
+
+        assertEquals(List.of(), ids(searchService.search("старое", 10)));
+        assertEquals(List.of(film.getId()), ids(searchService.search("новое", 10)));
+
+        FilmSearchService rebuilt = new FilmSearchService(filmStorage);
+        rebuilt.afterSingletonsInstantiated();
+        assertEquals(List.of(film.getId()), ids(rebuilt.search("новое назв", 10)));
+    }
+
+    @Test
+    void shouldRejectEmptyQueryAndBadLimit() {
+        assertThrows(ValidationException.class, () -> searchService.search(" ,. ", 10));
+        assertThrows(ValidationException.class, () -> searchService.search("космос", 0));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "filmorate.stress", matches = "true")
+    void reportQueryLatencyAtMillionFilms() {
+        int films = 1_000_000;
+        String[] vocabulary = new String[20_000];
+        Random random = new Random(5);
+        for (int i = 0; i < vocabulary.length; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 4 + random.nextInt(6);
+            for (int j = 0; j < length; j++) {
+                word.append((char) ('а' + random.nextInt(32)));
+            }
+            vocabulary[i] = word.toString();
+        }
+        for (int i = 0; i < films; i++) {
+            filmStorage.createFilm(createFilm(words(random, vocabulary, 3), words(random, vocabulary, 8)));
+        }
+        long start = System.nanoTime();
+        searchService.afterSingletonsInstantiated();
+        System.out.printf("index build: %d ms%n", (System.nanoTime() - start) / 1_000_000);
+
+        String[] queries = new String[2_000];
+        for (int i = 0; i < queries.length; i++) {
+            String word = vocabulary[random.nextInt(vocabulary.length)];
+            queries[i] = switch (i % 3) {
+                case 0 -> word;
+                case 1 -> word.substring(0, 3);
+                default -> word.substring(1) + " " + vocabulary[random.nextInt(vocabulary.length)];
+            };
+        }
+        for (String query : queries) {
+            searchService.search(query, 10); // прогрев
+        }
+        long[] latencies = new long[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            long queryStart = System.nanoTime();
+            searchService.search(queries[i], 10);
+            latencies[i] = System.nanoTime() - queryStart;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-8s %-10s %-10s%n", "films", "p50 ms", "p99 ms");
+        System.out.printf("%-8d %-10.2f %-10.2f%n", films, latencies[latencies.length / 2] / 1e6,
+                latencies[latencies.length * 99 / 100] / 1e6);
+    }
+
+    private static String words(Random random, String[] vocabulary, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(i == 0 ? "" : " ").append(vocabulary[random.nextInt(vocabulary.length)]);
+        }
+        return text.toString();
+    }
+
+    private static Film createFilm(String name, String description) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription(description);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(90);
+        return film;
+    }
+
+    private static List<Integer> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+}
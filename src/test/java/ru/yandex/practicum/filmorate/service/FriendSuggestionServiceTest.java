@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dto.FriendSuggestion;
+import ru.yandex.practicum.filmorate.event.FriendshipChangedEvent;
+import ru.yandex.practicum.filmorate.event.UsersClearedEvent;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты рекомендаций друзей.
+ */
+public class FriendSuggestionServiceTest {
+
+    private UserService userService;
+    private FriendSuggestionService suggestionService;
+    private SuggestionProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        properties = new SuggestionProperties();
+        suggestionService = new FriendSuggestionService(userStorage, properties);
+        // События доставляются синхронно, как в приложении
+        userService = new UserService(userStorage, new SimpleMeterRegistry(), event -> {
+            if (event instanceof FriendshipChangedEvent changed) {
+                suggestionService.onFriendshipChanged(changed);
+            } else if (event instanceof UsersClearedEvent cleared) {
+                suggestionService.onUsersCleared(cleared);
+            }
+        });
+        for (int i = 1; i <= 6; i++) {
+            User user = new User();
+            user.setEmail("u" + i + "@mail.com");
+            user.setLogin("u" + i);
+            user.setBirthday(LocalDate.of(1990, 1, i));
+            userService.createUser(user);
+        }
+    }
+
+    @Test
+    void shouldRankFriendsOfFriendsByMutualFriends() {
+        // 1 дружит с 2 и 3; 4 — друг и 2, и 3; 5 — только друг 2
+        userService.addFriend(1, 2);
+        userService.addFriend(1, 3);
+        userService.addFriend(2, 4);
+        userService.addFriend(3, 4);
+        userService.addFriend(2, 5);
+
+        List<FriendSuggestion> suggestions = suggestionService.getSuggestions(1, 10);
+
+        assertEquals(List.of(4, 5), suggestions.stream().map(s -> s.getUser().getId()).toList());
+        assertEquals(List.of(2, 1), suggestions.stream().map(FriendSuggestion::getMutualFriends).toList());
+        assertEquals(1, suggestionService.getSuggestions(1, 1).size());
+    }
+
+    @Test
+    void shouldInvalidateCachedSuggestionsOfNeighborhood() {
+        userService.addFriend(1, 2);
+        userService.addFriend(2, 3);
+        assertEquals(List.of(3), ids(suggestionService.getSuggestions(1, 10)));
+
+        // Друг пользователя подружился с 6: 6 появляется в рекомендациях, хотя 1 не менялся
+        userService.addFriend(2, 6);
+        assertEquals(List.of(3, 6), ids(suggestionService.getSuggestions(1, 10)));
+
+        // 1 подружился с 3: 3 пропадает из рекомендаций
+        userService.addFriend(1, 3);
+        assertEquals(List.of(6), ids(suggestionService.getSuggestions(1, 10)));
+
+        userService.removeFriend(1, 3);
+        assertEquals(List.of(3, 6), ids(suggestionService.getSuggestions(1, 10)));
+
+        userService.deleteAll();
+        assertThrows(NotFoundException.class, () -> suggestionService.getSuggestions(1, 10));
+    }
+
+    @Test
+    void shouldLimitFanOut() {
+        properties.setMaxFriendsScanned(1);
+        userService.addFriend(1, 2);
+        userService.addFriend(1, 3);
+        userService.addFriend(2, 4);
+        userService.addFriend(3, 5);
+
+        // Просматривается только первый друг (2), поэтому 5 не попадает в рекомендации
+        assertEquals(List.of(4), ids(suggestionService.getSuggestions(1, 10)));
+    }
+
+    @Test
+    void shouldValidateLimit() {
+        assertThrows(ValidationException.class, () -> suggestionService.getSuggestions(1, 0));
+        assertThrows(ValidationException.class, () -> suggestionService.getSuggestions(1, 101));
+        assertThrows(NotFoundException.class, () -> suggestionService.getSuggestions(999, 10));
+    }
+
+    private static List<Integer> ids(List<FriendSuggestion> suggestions) {
+        return suggestions.stream().map(s -> s.getUser().getId()).toList();
+    }
+}
@@ -0,0 +1,234 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import ru.yandex.practicum.filmorate.dto.LikeOperation;
+import ru.yandex.practicum.filmorate.exception.OverloadedException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты асинхронного приёма лайков.
+ * <p>
+ * Сравнение с синхронным путём на «вирусном» фильме запускается отдельно:
+ * {@code mvn test -Dfilmorate.stress=true -Dtest=LikePipelineTest}
+ */
+public class LikePipelineTest {
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private FilmService filmService;
+    private SimpleMeterRegistry meterRegistry;
+    private LikePipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        meterRegistry = new SimpleMeterRegistry();
+        filmService = new FilmService(filmStorage, userStorage, meterRegistry, event -> {
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void shouldCoalesceLikeThenUnlikeBeforeApplying() {
+        pipeline = create(100);
+        int filmId = filmStorage.createFilm(createFilm()).getId();
+        int first = userStorage.createUser(createUser("u1")).getId();
+        int second = userStorage.createUser(createUser("u2")).getId();
+
+        // Применители ещё не запущены: операции копятся и сводятся
+        pipeline.submit(filmId, first, LikeOperation.Type.ADD);
+        pipeline.submit(filmId, first, LikeOperation.Type.REMOVE);
+        pipeline.submit(filmId, second, LikeOperation.Type.ADD);
+        long versionBefore = filmStorage.version();
+        pipeline.start();
+
+        assertTrue(pipeline.awaitApplied(first));
+        assertTrue(pipeline.awaitApplied(second));
+        assertEquals(Set.of(second), filmStorage.findById(filmId).getLikes());
+        assertEquals(versionBefore + 1, filmStorage.version(), "Пачка фильма применяется одним изменением");
+        assertEquals(1.0, meterRegistry.get("filmorate.likes.async").tag("result", "coalesced").counter().count());
+    }
+
+    @Test
+    void shouldRejectNewPairsWhenQueueIsFull() {
+        pipeline = create(2);
+        pipeline.submit(1, 1, LikeOperation.Type.ADD);
+        pipeline.submit(1, 2, LikeOperation.Type.ADD);
+
+        assertThrows(OverloadedException.class, () -> pipeline.submit(1, 3, LikeOperation.Type.ADD));
+        // Сведение с ожидающей парой места не требует
+        pipeline.submit(1, 2, LikeOperation.Type.REMOVE);
+        assertEquals(1.0, meterRegistry.get("filmorate.likes.async").tag("result", "rejected").counter().count());
+    }
+
+    @Test
+    void shouldLetUserReadOwnLikesAndDropUnknownIds() {
+        pipeline = create(1_000);
+        pipeline.start();
+        int userId = userStorage.createUser(createUser("u1")).getId();
+        List<Integer> filmIds = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int filmId = filmStorage.createFilm(createFilm()).getId();
+            filmIds.add(filmId);
+            pipeline.submit(filmId, userId, LikeOperation.Type.ADD);
+        }
+        pipeline.submit(filmIds.get(0), 999, LikeOperation.Type.ADD);
+
+        assertTrue(pipeline.awaitApplied(userId));
+        assertEquals(filmIds, filmService.getLikedFilms(userId).stream().map(Film::getId).toList());
+        assertTrue(pipeline.awaitApplied(999));
+        assertEquals(1.0, meterRegistry.get("filmorate.likes.async").tag("result", "dropped").counter().count());
+    }
+
+    @Test
+    void shouldReportTimeoutWhenOwnLikesAreNotApplied() {
+        LikePipelineProperties properties = new LikePipelineProperties();
+        properties.setEnabled(true);
+        properties.setReadYourWritesTimeout(Duration.ofMillis(20));
+        pipeline = new LikePipeline(filmService, properties, meterRegistry);
+        // Применители не запущены: принятая операция так и ждёт в очереди
+        pipeline.submit(1, 7, LikeOperation.Type.ADD);
+
+        assertFalse(pipeline.awaitApplied(7));
+        assertTrue(pipeline.awaitApplied(8), "Пользователю без ожидающих операций ждать нечего");
+        assertEquals(1.0, meterRegistry.get("filmorate.likes.async").tag("result", "read-timeout").counter().count());
+    }
+
+    @Test
+    void shouldCapBatchAtLikeBatchLimit() {
+        LikePipelineProperties properties = new LikePipelineProperties();
+        properties.setEnabled(true);
+        properties.setQueueCapacity(20_000);
+        properties.setMaxBatch(20_000);
+        properties.setReadYourWritesTimeout(Duration.ofSeconds(10));
+        pipeline = new LikePipeline(filmService, properties, meterRegistry);
+        int filmId = filmStorage.createFilm(createFilm()).getId();
+        int users = 12_000;
+        int lastUserId = 0;
+        for (int i = 0; i < users; i++) {
+            lastUserId = userStorage.createUser(createUser("u" + i)).getId();
+            pipeline.submit(filmId, lastUserId, LikeOperation.Type.ADD);
+        }
+        pipeline.start();
+
+        // Пачка больше предела была бы отклонена целиком и отброшена; очередь фильма одна,
+        // поэтому последняя пара применяется последней
+        assertTrue(pipeline.awaitApplied(lastUserId));
+        assertEquals(users, filmStorage.findById(filmId).getLikes().size());
+        assertEquals(0.0, meterRegistry.get("filmorate.likes.async").tag("result", "dropped").counter().count());
+        assertEquals(10_000, meterRegistry.get("filmorate.likes.async.batch").summary().max());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "filmorate.stress", matches = "true")
+    void reportViralFilmThroughput() throws Exception {
+        int users = 200_000;
+        for (int i = 0; i < users; i++) {
+            userStorage.createUser(createUser("u" + i));
+        }
+        System.out.printf("%-8s %-14s %-12s%n", "mode", "requests/s", "likes");
+        runViralLoad("sync", users, (filmId, userId) -> filmService.addLike(filmId, userId));
+        pipeline = create(100_000);
+        pipeline.start();
+        runViralLoad("async", users, (filmId, userId) -> {
+            // Клиент повторяет запрос после 503
+            while (true) {
+                try {
+                    pipeline.submit(filmId, userId, LikeOperation.Type.ADD);
+                    return;
+                } catch (OverloadedException e) {
+                    Thread.onSpinWait();
+                }
+            }
+        });
+        System.out.printf("rejected: %.0f, mean batch: %.0f%n",
+                meterRegistry.get("filmorate.likes.async").tag("result", "rejected").counter().count(),
+                meterRegistry.get("filmorate.likes.async.batch").summary().mean());
+    }
+
+    private void runViralLoad(String mode, int users, LikeAction action) throws Exception {
+        int filmId = filmStorage.createFilm(createFilm()).getId();
+        int threads = 8;
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long started = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int userId = next.incrementAndGet(); userId <= users; userId = next.incrementAndGet()) {
+                        action.like(filmId, userId);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        if (pipeline != null) {
+            pipeline.awaitApplied(users);
+        }
+        System.out.printf("%-8s %-14.0f %-12d%n", mode, users / seconds, filmStorage.findById(filmId).getLikes().size());
+    }
+
+    @FunctionalInterface
+    private interface LikeAction {
+        void like(int filmId, int userId);
+    }
+
+    private LikePipeline create(int capacity) {
+        LikePipelineProperties properties = new LikePipelineProperties();
+        properties.setEnabled(true);
+        properties.setQueueCapacity(capacity);
+        properties.setEnqueueTimeout(Duration.ofMillis(10));
+        properties.setReadYourWritesTimeout(Duration.ofSeconds(10));
+        return new LikePipeline(filmService, properties, meterRegistry);
+    }
+
+    private static Film createFilm() {
+        Film film = new Film();
+        film.setName("Film");
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return film;
+    }
+
+    private static User createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
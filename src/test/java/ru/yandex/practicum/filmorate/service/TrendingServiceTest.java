@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dto.LikeOperation;
+import ru.yandex.practicum.filmorate.event.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.event.LikesChangedEvent;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.practicum.filmorate.service.TrendingService.Window.*;
+
+/**
+ * Тесты трендов по окнам: время задаётся вручную.
+ */
+public class TrendingServiceTest {
+
+    // Начало часа: корзины всех колец начинаются одновременно
+    private static final long START = Duration.ofDays(20_000).toMillis();
+
+    private final AtomicLong now = new AtomicLong(START);
+    private InMemoryFilmStorage filmStorage;
+    private FilmService filmService;
+    private TrendingService trendingService;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        trendingService = new TrendingService(filmStorage, now::get);
+        filmService = new FilmService(filmStorage, userStorage, new SimpleMeterRegistry(), event -> {
+            if (event instanceof LikesChangedEvent changed) {
+                trendingService.onLikesChanged(changed);
+            } else if (event instanceof FilmDeletedEvent deleted) {
+                trendingService.onFilmDeleted(deleted);
+            }
+        });
+        for (int i = 1; i <= 5; i++) {
+            User user = new User();
+            user.setEmail("u" + i + "@mail.com");
+            user.setLogin("u" + i);
+            user.setBirthday(LocalDate.of(1990, 1, i));
+            userStorage.createUser(user);
+
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Описание");
+            film.setReleaseDate(LocalDate.of(2000, 1, i));
+            film.setDuration(90);
+            filmStorage.createFilm(film);
+        }
+    }
+
+    @Test
+    void shouldRankByLikesInsideEachWindow() {
+        // Фильм 1 лайкнули трижды в начале, фильм 2 — дважды через 50 минут
+        for (int userId = 1; userId <= 3; userId++) {
+            filmService.addLike(1, userId);
+        }
+        advance(Duration.ofMinutes(50));
+        filmService.addLike(2, 1);
+        filmService.addLike(2, 2);
+        assertEquals(List.of(1, 2), ids(trendingService.getTrendingFilms(HOUR, 10)));
+
+        // Лайки фильма 1 вышли из часового окна, но остались в суточном
+        advance(Duration.ofMinutes(11));
+        assertEquals(List.of(2), ids(trendingService.getTrendingFilms(HOUR, 10)));
+        assertEquals(List.of(1, 2), ids(trendingService.getTrendingFilms(DAY, 10)));
+        assertEquals(List.of(1), ids(trendingService.getTrendingFilms(DAY, 1)));
+
+        advance(Duration.ofDays(1));
+        assertEquals(List.of(), ids(trendingService.getTrendingFilms(DAY, 10)));
+        assertEquals(List.of(1, 2), ids(trendingService.getTrendingFilms(WEEK, 10)));
+
+        // Неделя без лайков: фоновый обход убирает фильмы и из рейтинга, и из счётчиков
+        advance(Duration.ofDays(7));
+        trendingService.rotate();
+        assertEquals(List.of(), ids(trendingService.getTrendingFilms(WEEK, 10)));
+    }
+
+    @Test
+    void shouldCountOnlyEffectiveChanges() {
+        filmService.addLike(1, 1);
+        filmService.addLike(1, 1); // повторный лайк не меняет число лайков
+        filmService.applyLikeBatch(List.of(
+                new LikeOperation(2, 1, LikeOperation.Type.ADD),
+                new LikeOperation(2, 2, LikeOperation.Type.ADD),
+                new LikeOperation(2, 3, LikeOperation.Type.ADD),
+                new LikeOperation(1, 2, LikeOperation.Type.REMOVE)));
+        assertEquals(List.of(2, 1), ids(trendingService.getTrendingFilms(HOUR, 10)));
+
+        // Снятый лайк вычитается из окна; фильм без прироста в тренды не попадает
+        filmService.removeLike(1, 1);
+        assertEquals(List.of(2), ids(trendingService.getTrendingFilms(HOUR, 10)));
+
+        filmService.deleteFilm(2);
+        assertEquals(List.of(), ids(trendingService.getTrendingFilms(WEEK, 10)));
+    }
+
+    @Test
+    void shouldRejectUnknownWindowAndNegativeCount() {
+        assertEquals(DAY, TrendingService.Window.fromParam("24h"));
+        assertThrows(ValidationException.class, () -> TrendingService.Window.fromParam("1d"));
+        assertThrows(ValidationException.class, () -> trendingService.getTrendingFilms(HOUR, -1));
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toMillis());
+    }
+
+    private static List<Integer> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+}
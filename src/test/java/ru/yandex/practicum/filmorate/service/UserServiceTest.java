@@ -1,12 +1,20 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.event.UserDeletedEvent;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
 import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -19,7 +27,8 @@ public class UserServiceTest {
 
     @BeforeEach
     void setUp() {
-        userService = new UserService(new InMemoryUserStorage());
+        userService = new UserService(new InMemoryUserStorage(), new SimpleMeterRegistry(), event -> {
+        });
     }
 
     @Test
@@ -99,4 +108,112 @@ public class UserServiceTest {
 
         assertTrue(userService.findAll().isEmpty(), "Список пользователей должен быть пуст");
     }
+
+    @Test
+    void shouldPageUsersByIdCursor() {
+        for (int i = 1; i <= 3; i++) {
+            User user = new User();
+            user.setEmail("p" + i + "@mail.com");
+            user.setLogin("p" + i);
+            user.setBirthday(LocalDate.of(1990, 1, i));
+            userService.createUser(user);
+        }
+
+        assertEquals(List.of(1, 2), userService.findPage(0, 2).stream().map(User::getId).toList());
+        assertEquals(List.of(3), userService.findPage(2, 2).stream().map(User::getId).toList());
+        assertThrows(ValidationException.class, () -> userService.findPage(0, 0), "limit должен быть положительным");
+    }
+
+    @Test
+    void shouldFindAndCountCommonFriends() {
+        List<User> users = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            User user = new User();
+            user.setEmail("c" + i + "@mail.com");
+            user.setLogin("c" + i);
+            user.setBirthday(LocalDate.of(1990, 1, i));
+            users.add(userService.createUser(user));
+        }
+        int u1 = users.get(0).getId();
+        int u2 = users.get(1).getId();
+        userService.addFriend(u1, users.get(2).getId());
+        userService.addFriend(u1, users.get(3).getId());
+        userService.addFriend(u2, users.get(3).getId());
+
+        assertEquals(List.of(users.get(3).getId()),
+                userService.getCommonFriends(u1, u2).stream().map(User::getId).toList());
+        assertEquals(1, userService.countCommonFriends(u1, u2));
+        assertEquals(0, userService.countCommonFriends(u1, users.get(2).getId()));
+    }
+
+    @Test
+    void shouldCascadeUserDeletionToFriendsAndLikes() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        FilmService[] filmServiceHolder = new FilmService[1];
+        UserService service = new UserService(userStorage, new SimpleMeterRegistry(), event -> {
+            if (event instanceof UserDeletedEvent deleted) {
+                filmServiceHolder[0].onUserDeleted(deleted);
+            }
+        });
+        FilmService filmService = new FilmService(filmStorage, userStorage, new SimpleMeterRegistry(), event -> {
+        });
+        filmServiceHolder[0] = filmService;
+
+        User doomed = service.createUser(createUser("doomed"));
+        User friend = service.createUser(createUser("friend"));
+        service.addFriend(doomed.getId(), friend.getId());
+        Film liked = filmService.createFilm(createFilm());
+        Film other = filmService.createFilm(createFilm());
+        filmService.addLike(liked.getId(), doomed.getId());
+        filmService.addLike(liked.getId(), friend.getId());
+        filmService.addLike(other.getId(), friend.getId());
+        assertEquals(List.of(liked.getId()), filmService.getLikedFilms(doomed.getId()).stream()
+                .map(Film::getId).toList());
+
+        service.deleteUser(doomed.getId());
+
+        assertThrows(NotFoundException.class, () -> service.findById(doomed.getId()));
+        assertTrue(service.findById(friend.getId()).getFriends().isEmpty(), "Вторая сторона дружбы снята");
+        assertEquals(Set.of(friend.getId()), filmStorage.findById(liked.getId()).getLikes());
+        assertEquals(0, filmStorage.findLikedFilmIds(doomed.getId()).length);
+        assertThrows(NotFoundException.class, () -> filmService.getLikedFilms(doomed.getId()));
+        assertThrows(NotFoundException.class, () -> service.deleteUser(doomed.getId()));
+        assertThrows(NotFoundException.class, () -> service.addFriend(friend.getId(), doomed.getId()));
+    }
+
+    @Test
+    void shouldCountOnlyEffectiveFriendshipChanges() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        UserService service = new UserService(new InMemoryUserStorage(), meterRegistry, event -> {
+        });
+        int u1 = service.createUser(createUser("first")).getId();
+        int u2 = service.createUser(createUser("second")).getId();
+
+        service.addFriend(u1, u2);
+        // Повторное добавление и снятие отсутствующей дружбы ничего не меняют и не считаются
+        service.addFriend(u2, u1);
+        service.removeFriend(u1, u2);
+        service.removeFriend(u1, u2);
+
+        assertEquals(1, meterRegistry.get("filmorate.friends").tag("op", "add").counter().count());
+        assertEquals(1, meterRegistry.get("filmorate.friends").tag("op", "remove").counter().count());
+    }
+
+    private static User createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+
+    private static Film createFilm() {
+        Film film = new Film();
+        film.setName("Film");
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(90);
+        return film;
+    }
 }
@@ -0,0 +1,182 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Стресс-тесты конкурентного доступа к хранилищам в памяти.
+ * <p>
+ * Замер масштабирования пропускной способности запускается отдельно:
+ * {@code mvn test -Dfilmorate.stress=true -Dtest=InMemoryStorageConcurrencyTest}
+ */
+public class InMemoryStorageConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    void shouldNotLoseCreatedFilmsUnderConcurrentWrites() throws Exception {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        int perThread = 2_000;
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < perThread; i++) {
+                storage.createFilm(createFilm("F" + thread + "-" + i));
+            }
+        });
+
+        List<Film> all = storage.findAll();
+        assertEquals(THREADS * perThread, all.size());
+        assertEquals(all.size(), all.stream().map(Film::getId).distinct().count(), "ID должны быть уникальны");
+    }
+
+    @Test
+    void shouldReadAllWhileUsersAreCreated() throws Exception {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    storage.createUser(createUser("u" + i));
+                }
+                writing.set(false);
+            });
+            Future<?> reader = executor.submit(() -> {
+                while (writing.get()) {
+                    storage.findAll(); // не должно бросать ConcurrentModificationException
+                }
+            });
+            writer.get(30, TimeUnit.SECONDS);
+            reader.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(20_000, storage.findAll().size());
+    }
+
+    @Test
+    void shouldCountEveryConcurrentLike() throws Exception {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        Film hot = storage.createFilm(createFilm("Hot"));
+        Film cold = storage.createFilm(createFilm("Cold"));
+        int perThread = 5_000;
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < perThread; i++) {
+                int userId = thread * perThread + i;
+                storage.addLike(hot.getId(), userId);
+                if (i % 2 == 0) {
+                    storage.addLike(cold.getId(), userId);
+                    storage.removeLike(cold.getId(), userId);
+                }
+            }
+        });
+
+        assertEquals(THREADS * perThread, storage.findById(hot.getId()).getLikes().size());
+        assertEquals(0, storage.findById(cold.getId()).getLikes().size());
+        assertEquals(List.of(hot.getId(), cold.getId()),
+                storage.findPopular(2).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    void shouldKeepFriendsConsistentUnderConcurrentUpdates() throws Exception {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        User hub = storage.createUser(createUser("hub"));
+        int perThread = 1_000;
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < perThread; i++) {
+                User friend = storage.createUser(createUser("f" + thread + "-" + i));
+                hub.addFriend(friend.getId());
+                friend.addFriend(hub.getId());
+            }
+        });
+
+        assertEquals(THREADS * perThread, storage.findById(hub.getId()).getFriends().size());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "filmorate.stress", matches = "true")
+    void reportThroughputScaling() throws Exception {
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        int opsPerThread = 200_000;
+        System.out.printf("%-8s %-15s %-10s%n", "threads", "ops/sec", "speedup");
+        double base = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            InMemoryFilmStorage storage = new InMemoryFilmStorage();
+            for (int i = 0; i < 1_000; i++) {
+                storage.createFilm(createFilm("F" + i));
+            }
+            long start = System.nanoTime();
+            runConcurrently(threads, thread -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < opsPerThread; i++) {
+                    int filmId = random.nextInt(1, 1_001);
+                    if (i % 10 == 0) {
+                        storage.addLike(filmId, random.nextInt(1_000_000));
+                    } else {
+                        storage.findById(filmId);
+                    }
+                }
+            });
+            double opsPerSec = threads * (double) opsPerThread / ((System.nanoTime() - start) / 1e9);
+            if (base == 0) {
+                base = opsPerSec;
+            }
+            System.out.printf("%-8d %-15.0f %-10.2f%n", threads, opsPerSec, opsPerSec / base);
+        }
+    }
+
+    private static void runConcurrently(int threads, ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Film createFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Stress");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return film;
+    }
+
+    private static User createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+}
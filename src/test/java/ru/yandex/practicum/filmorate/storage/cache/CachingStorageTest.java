@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.jdbc.JdbcFilmStorage;
+import ru.yandex.practicum.filmorate.storage.jdbc.JdbcStorageConfiguration;
+import ru.yandex.practicum.filmorate.storage.jdbc.JdbcUserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты кэширующих обёрток над реляционным хранилищем.
+ */
+public class CachingStorageTest {
+
+    private HikariDataSource dataSource;
+    private FilmStorage filmDelegate;
+    private UserStorage userDelegate;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new DefaultResourceLoader().getResource(JdbcStorageConfiguration.SCHEMA))
+                .execute(dataSource);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        TransactionTemplate transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        filmDelegate = spy(new JdbcFilmStorage(jdbc, transactions));
+        userDelegate = spy(new JdbcUserStorage(jdbc, transactions));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void shouldServeRepeatedReadsFromCacheAndInvalidateOnWrite() {
+        CachingFilmStorage films = new CachingFilmStorage(filmDelegate, 100, meterRegistry);
+        int id = films.createFilm(createFilm("Film")).getId();
+
+        Film first = films.findById(id);
+        assertSame(first, films.findById(id), "Повторное чтение должно прийти из кэша");
+        verify(filmDelegate, times(1)).findById(id);
+
+        films.addLike(id, 7);
+        assertEquals(Set.of(7), films.findById(id).getLikes(), "Лайк должен сбросить фильм в кэше");
+        verify(filmDelegate, times(2)).findById(id);
+
+        assertNull(films.findById(999));
+        assertNull(films.findById(999), "Отсутствующий фильм не кэшируется");
+        verify(filmDelegate, times(2)).findById(999);
+
+        films.deleteFilm(id);
+        assertNull(films.findById(id));
+
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "films").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(5.0, meterRegistry.get("cache.gets").tag("cache", "films").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void shouldInvalidateOnlyTheChangedSideOfFriendship() {
+        CachingUserStorage users = new CachingUserStorage(userDelegate, 100, meterRegistry);
+        int userId = users.createUser(createUser("u1")).getId();
+        int friendId = users.createUser(createUser("u2")).getId();
+        users.findById(userId);
+        users.findById(friendId);
+
+        users.addFriend(userId, friendId);
+
+        assertEquals(Set.of(friendId), users.findById(userId).getFriends());
+        users.findById(friendId);
+        verify(userDelegate, times(2)).findById(userId);
+        verify(userDelegate, times(1)).findById(friendId);
+
+        assertEquals(Set.of(userId, friendId), users.findExistingIds(List.of(userId, friendId)));
+        verify(userDelegate, never()).findExistingIds(any());
+    }
+
+    @Test
+    void shouldStayWithinMaximumSize() {
+        CachingUserStorage users = new CachingUserStorage(userDelegate, 10, meterRegistry);
+        for (int i = 0; i < 100; i++) {
+            users.findById(users.createUser(createUser("u" + i)).getId());
+        }
+        // Второй проход почти целиком промахивается: в кэше помещается только десятая часть
+        for (int i = 1; i <= 100; i++) {
+            users.findById(i);
+        }
+        verify(userDelegate, atLeast(180)).findById(anyInt());
+    }
+
+    private static Film createFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return film;
+    }
+
+    private static User createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
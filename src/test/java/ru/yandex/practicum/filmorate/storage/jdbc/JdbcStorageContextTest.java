@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.storage.jdbc;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.cache.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.cache.CachingUserStorage;
+import ru.yandex.practicum.filmorate.storage.persistence.Journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Приложение поднимается на реляционном хранилище с кэшем, журнал и снимки при этом не создаются.
+ */
+@SpringBootTest(properties = {
+        "filmorate.storage.type=h2",
+        "spring.datasource.url=jdbc:h2:mem:context-test;DB_CLOSE_DELAY=-1"
+})
+public class JdbcStorageContextTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Autowired
+    private UserStorage userStorage;
+
+    @Test
+    void shouldSelectJdbcStorages() {
+        assertInstanceOf(CachingFilmStorage.class, filmStorage);
+        assertInstanceOf(CachingUserStorage.class, userStorage);
+        assertTrue(context.getBeansOfType(Journal.class).isEmpty());
+        assertEquals(0, filmStorage.count());
+    }
+}
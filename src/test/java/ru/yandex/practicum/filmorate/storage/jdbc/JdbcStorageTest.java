@@ -0,0 +1,190 @@
+package ru.yandex.practicum.filmorate.storage.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.event.UserDeletedEvent;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты реляционного хранилища на встроенной H2 в памяти.
+ */
+public class JdbcStorageTest {
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private JdbcFilmStorage filmStorage;
+    private JdbcUserStorage userStorage;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new DefaultResourceLoader().getResource(JdbcStorageConfiguration.SCHEMA))
+                .execute(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        TransactionTemplate transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        filmStorage = new JdbcFilmStorage(jdbc, transactions);
+        userStorage = new JdbcUserStorage(jdbc, transactions);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void shouldStoreFilmsWithLikes() {
+        Film film = createFilm("Film", LocalDate.of(2000, 1, 1));
+        film.addLikes(new int[]{3, 1});
+        int id = filmStorage.createFilm(film).getId();
+
+        Film stored = filmStorage.findById(id);
+        assertEquals("Film", stored.getName());
+        assertEquals(LocalDate.of(2000, 1, 1), stored.getReleaseDate());
+        assertEquals(Set.of(1, 3), stored.getLikes());
+
+        assertTrue(filmStorage.addLike(id, 2));
+        assertFalse(filmStorage.addLike(id, 2), "Повторный лайк не должен добавиться");
+        assertTrue(filmStorage.removeLike(id, 1));
+        assertEquals(new FilmStorage.LikeChanges(2, 1), filmStorage.applyLikes(id, new int[]{4, 5, 2}, new int[]{3, 9}),
+                "Добавлено 2, удалён 1");
+        assertEquals(Set.of(2, 4, 5), filmStorage.findById(id).getLikes());
+        assertEquals(3, likesCount(id), "Счётчик должен совпадать с числом строк лайков");
+        assertArrayEquals(new int[]{id}, filmStorage.findLikedFilmIds(4));
+
+        assertThrows(NotFoundException.class, () -> filmStorage.addLike(999, 1));
+        assertEquals(Set.of(id), filmStorage.findExistingIds(List.of(id, 999)));
+    }
+
+    @Test
+    void shouldServePopularFilmsFromIndex() {
+        int first = filmStorage.createFilm(createFilm("A", LocalDate.of(2000, 1, 1))).getId();
+        int second = filmStorage.createFilm(createFilm("B", LocalDate.of(2001, 1, 1))).getId();
+        int third = filmStorage.createFilm(createFilm("C", null)).getId();
+        filmStorage.applyLikes(second, new int[]{1, 2}, new int[0]);
+        filmStorage.addLike(third, 1);
+
+        assertEquals(List.of(second, third, first), filmStorage.findPopular(10).stream().map(Film::getId).toList());
+        assertEquals(Set.of(1, 2), filmStorage.findPopular(1).get(0).getLikes());
+
+        String plan = jdbc.queryForObject("EXPLAIN SELECT id FROM films ORDER BY likes_count DESC, id LIMIT 10",
+                String.class);
+        assertTrue(plan.contains("FILMS_BY_POPULARITY") && plan.contains("index sorted"), plan);
+
+        assertEquals(List.of(first, second), filmStorage.findByReleaseDate(null, null, 10).stream()
+                .map(Film::getId).toList());
+        assertEquals(List.of(second), filmStorage.findByReleaseDate(LocalDate.of(2000, 6, 1), null, 10).stream()
+                .map(Film::getId).toList());
+    }
+
+    @Test
+    void shouldCountConcurrentLikes() throws Exception {
+        int id = filmStorage.createFilm(createFilm("Hot", LocalDate.of(2000, 1, 1))).getId();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int base = thread * 200;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        filmStorage.addLike(id, base + i);
+                        if (i % 2 == 0) {
+                            filmStorage.removeLike(id, base + i);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(400, filmStorage.findById(id).getLikes().size());
+        assertEquals(400, likesCount(id));
+    }
+
+    @Test
+    void shouldCascadeUserDeletionThroughServices() {
+        UserService userService = new UserService(userStorage, new SimpleMeterRegistry(), event -> {
+        });
+        FilmService filmService = new FilmService(filmStorage, userStorage, new SimpleMeterRegistry(), event -> {
+        });
+        int userId = userService.createUser(createUser("u1")).getId();
+        int friendId = userService.createUser(createUser("u2")).getId();
+        userService.addFriend(userId, friendId);
+        int filmId = filmService.createFilm(createFilm("Film", LocalDate.of(2000, 1, 1))).getId();
+        filmService.addLike(filmId, userId);
+        assertEquals(Set.of(friendId), userService.findById(userId).getFriends());
+
+        userService.deleteUser(userId);
+        filmService.onUserDeleted(new UserDeletedEvent(userId));
+
+        assertNull(userStorage.findById(userId));
+        assertTrue(userService.findById(friendId).getFriends().isEmpty());
+        assertTrue(filmStorage.findById(filmId).getLikes().isEmpty());
+        assertEquals(0, likesCount(filmId));
+
+        userService.deleteAll();
+        assertEquals(1, userStorage.createUser(createUser("u3")).getId(), "Нумерация начинается заново");
+    }
+
+    @Test
+    void shouldBumpVersionOnChangesOnly() {
+        long initial = filmStorage.version();
+        int id = filmStorage.createFilm(createFilm("Film", LocalDate.of(2000, 1, 1))).getId();
+        filmStorage.addLike(id, 1);
+        long afterLike = filmStorage.version();
+        assertTrue(afterLike > initial);
+
+        filmStorage.addLike(id, 1);
+        filmStorage.applyLikes(id, new int[]{1}, new int[]{2});
+        assertEquals(afterLike, filmStorage.version(), "Без изменений версия не растёт");
+    }
+
+    private int likesCount(int filmId) {
+        return jdbc.queryForObject("SELECT likes_count FROM films WHERE id = ?", Integer.class, filmId);
+    }
+
+    private static Film createFilm(String name, LocalDate releaseDate) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Описание");
+        film.setReleaseDate(releaseDate);
+        film.setDuration(100);
+        return film;
+    }
+
+    private static User createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.storage.mvcc;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.persistence.Journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Приложение поднимается на многоверсионном хранилище, журнал и снимки при этом не создаются.
+ */
+@SpringBootTest(properties = {
+        "filmorate.storage.type=mvcc"
+})
+public class MvccStorageContextTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Autowired
+    private UserStorage userStorage;
+
+    @Test
+    void shouldSelectMvccStorages() {
+        assertInstanceOf(MvccFilmStorage.class, filmStorage);
+        assertInstanceOf(MvccUserStorage.class, userStorage);
+        assertTrue(context.getBeansOfType(Journal.class).isEmpty());
+    }
+}
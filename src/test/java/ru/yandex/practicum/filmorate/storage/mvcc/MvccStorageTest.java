@@ -0,0 +1,157 @@
+package ru.yandex.practicum.filmorate.storage.mvcc;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты многоверсионного хранилища: снимки, неизменяемость отданных версий.
+ */
+public class MvccStorageTest {
+
+    @Test
+    void snapshotShouldNotSeeLaterCommits() {
+        VersionedMap<String> map = new VersionedMap<>();
+        map.replace(1, null, "a");
+        map.replace(2, null, "b");
+
+        try (VersionedMap<String>.Snapshot snapshot = map.snapshot()) {
+            map.replace(1, "a", "a2");
+            map.replace(2, "b", null);
+            map.replace(3, null, "c");
+
+            assertEquals(List.of("a", "b"), snapshot.values(0).toList());
+            assertEquals("b", snapshot.get(2));
+            assertNull(snapshot.get(3));
+            try (VersionedMap<String>.Snapshot fresh = map.snapshot()) {
+                assertEquals(List.of("a2", "c"), fresh.values(0).toList());
+            }
+        }
+        assertFalse(map.replace(1, "a", "stale"), "Запись по устаревшему значению не проходит");
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.latest(1));
+        assertEquals(6, map.clock());
+    }
+
+    @Test
+    void shouldNeverChangeReturnedFilms() {
+        MvccFilmStorage storage = new MvccFilmStorage();
+        int hit = storage.createFilm(createFilm("Hit")).getId();
+        int other = storage.createFilm(createFilm("Other")).getId();
+        Film before = storage.findById(hit);
+        List<Film> all = storage.findAll();
+
+        storage.addLike(hit, 1);
+        storage.applyLikes(hit, new int[]{2, 3}, new int[0]);
+        storage.addLike(other, 1);
+        Film renamed = storage.findById(hit).copy();
+        renamed.setName("Renamed");
+        storage.updateFilm(renamed);
+
+        assertTrue(before.getLikes().isEmpty(), "Отданная версия не меняется");
+        assertEquals("Hit", all.get(0).getName());
+        Film after = storage.findById(hit);
+        assertEquals("Renamed", after.getName());
+        assertEquals(Set.of(1, 2, 3), after.getLikes(), "Обновление полей сохраняет лайки");
+        assertEquals(List.of(hit, other), storage.findPopular(10).stream().map(Film::getId).toList());
+        assertArrayEquals(new int[]{hit, other}, storage.findLikedFilmIds(1));
+        assertEquals(4, storage.countLikes());
+
+        assertTrue(storage.deleteFilm(hit));
+        assertNull(storage.findById(hit));
+        assertEquals(List.of(other), storage.findPopular(10).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    void scansShouldSeeOnlyWholeVersionsWhileWritersProceed() throws Exception {
+        MvccFilmStorage storage = new MvccFilmStorage();
+        for (int i = 0; i < 200; i++) {
+            storage.createFilm(createFilm("v100"));
+        }
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < 2; w++) {
+                writers.add(executor.submit(() -> {
+                    for (int round = 101; round < 400; round++) {
+                        for (int id = 1; id <= 200; id++) {
+                            // Имя и продолжительность меняются одним обновлением
+                            Film update = storage.findById(id).copy();
+                            update.setName("v" + round);
+                            update.setDuration(round);
+                            storage.updateFilm(update);
+                            storage.addLike(id, round);
+                        }
+                    }
+                }));
+            }
+            Future<?> reader = executor.submit(() -> {
+                while (writing.get()) {
+                    for (Film film : storage.findAll()) {
+                        assertEquals("v" + film.getDuration(), film.getName(), "Полуобновлённый фильм");
+                    }
+                }
+            });
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            reader.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(200 * 299, storage.countLikes());
+    }
+
+    @Test
+    void friendsShouldComeFromOneSnapshot() {
+        MvccUserStorage storage = new MvccUserStorage();
+        UserService userService = new UserService(storage, new SimpleMeterRegistry(), event -> {
+        });
+        int user = userService.createUser(createUser("u1")).getId();
+        int friend = userService.createUser(createUser("u2")).getId();
+        int gone = userService.createUser(createUser("u3")).getId();
+        userService.addFriend(user, friend);
+        userService.addFriend(user, gone);
+
+        // Удаление в обход каскада сервиса: вторая сторона дружбы ещё ссылается на пользователя
+        storage.deleteUser(gone);
+
+        assertEquals(List.of(friend), userService.getFriends(user).stream().map(User::getId).toList());
+        assertEquals(Set.of(friend, gone), storage.findById(user).getFriends());
+    }
+
+    private static Film createFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return film;
+    }
+
+    private static User createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
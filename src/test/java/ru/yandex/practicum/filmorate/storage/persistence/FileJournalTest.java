@@ -0,0 +1,315 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты журнала изменений и восстановления хранилищ из него.
+ */
+public class FileJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldRestoreStateAfterRestart() {
+        Path path = dir.resolve("journal.log");
+        int filmId;
+        int userId;
+        int friendId;
+        try (FileJournal journal = open(path, FsyncPolicy.ALWAYS)) {
+            InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(journal);
+            InMemoryUserStorage userStorage = new InMemoryUserStorage(journal);
+            recover(journal, filmStorage, userStorage);
+            FilmService filmService = new FilmService(filmStorage, userStorage, new SimpleMeterRegistry(), event -> {
+            });
+            UserService userService = new UserService(userStorage, new SimpleMeterRegistry(), event -> {
+            });
+
+            userId = userService.createUser(createUser("u1")).getId();
+            friendId = userService.createUser(createUser("u2")).getId();
+            userService.addFriend(userId, friendId);
+            Film film = filmService.createFilm(createFilm("Film"));
+            filmId = film.getId();
+            filmService.addLike(filmId, userId);
+            filmService.addLike(filmId, friendId);
+            filmService.removeLike(filmId, friendId);
+            film.setName("Renamed");
+            filmService.updateFilmCustomValidation(film);
+        }
+
+        try (FileJournal journal = open(path, FsyncPolicy.ALWAYS)) {
+            InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(journal);
+            InMemoryUserStorage userStorage = new InMemoryUserStorage(journal);
+            recover(journal, filmStorage, userStorage);
+
+            Film restored = filmStorage.findById(filmId);
+            assertEquals("Renamed", restored.getName());
+            assertEquals(Set.of(userId), restored.getLikes());
+            assertEquals(Set.of(friendId), userStorage.findById(userId).getFriends());
+            assertEquals(Set.of(userId), userStorage.findById(friendId).getFriends());
+            assertEquals(filmId, filmStorage.findPopular(1).get(0).getId());
+
+            // Генератор ID продолжает после восстановленных записей
+            assertEquals(filmId + 1, filmStorage.createFilm(createFilm("Next")).getId());
+        }
+    }
+
+    @Test
+    void shouldReplayDeletions() {
+        Path path = dir.resolve("journal.log");
+        int keptFilm;
+        int deletedFilm;
+        int userId;
+        try (FileJournal journal = open(path, FsyncPolicy.ALWAYS)) {
+            InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(journal);
+            InMemoryUserStorage userStorage = new InMemoryUserStorage(journal);
+            recover(journal, filmStorage, userStorage);
+            userId = userStorage.createUser(createUser("u1")).getId();
+            int deletedUser = userStorage.createUser(createUser("u2")).getId();
+            keptFilm = filmStorage.createFilm(createFilm("Kept")).getId();
+            deletedFilm = filmStorage.createFilm(createFilm("Deleted")).getId();
+            filmStorage.addLike(keptFilm, userId);
+            filmStorage.addLike(deletedFilm, userId);
+            filmStorage.deleteFilm(deletedFilm);
+            userStorage.deleteUser(deletedUser);
+        }
+
+        try (FileJournal journal = open(path, FsyncPolicy.ALWAYS)) {
+            InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(journal);
+            InMemoryUserStorage userStorage = new InMemoryUserStorage(journal);
+            recover(journal, filmStorage, userStorage);
+
+            assertNull(filmStorage.findById(deletedFilm));
+            assertEquals(1, userStorage.count());
+            assertArrayEquals(new int[]{keptFilm}, filmStorage.findLikedFilmIds(userId));
+        }
+    }
+
+    @Test
+    void shouldTruncateTornTail() throws IOException {
+        Path path = dir.resolve("journal.log");
+        try (FileJournal journal = open(path, FsyncPolicy.ALWAYS)) {
+            journal.replay(0, record -> {
+            });
+            journal.awaitDurable(journal.append(new JournalRecord.FriendChanged(1, 2, true)));
+            journal.awaitDurable(journal.append(new JournalRecord.FriendChanged(1, 3, true)));
+        }
+        long size;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            size = channel.size();
+            channel.truncate(size - 3); // обрыв посреди последнего кадра
+        }
+
+        List<JournalRecord> replayed = new ArrayList<>();
+        try (FileJournal journal = open(path, FsyncPolicy.ALWAYS)) {
+            journal.replay(0, replayed::add);
+            journal.awaitDurable(journal.append(new JournalRecord.FriendChanged(1, 4, true)));
+        }
+        assertEquals(List.of(new JournalRecord.FriendChanged(1, 2, true)), replayed);
+
+        replayed.clear();
+        try (FileJournal journal = open(path, FsyncPolicy.ALWAYS)) {
+            journal.replay(0, replayed::add);
+        }
+        assertEquals(List.of(new JournalRecord.FriendChanged(1, 2, true),
+                new JournalRecord.FriendChanged(1, 4, true)), replayed);
+    }
+
+    @Test
+    void shouldFlushPendingRecordsOnCloseWithIntervalPolicy() {
+        Path path = dir.resolve("journal.log");
+        try (FileJournal journal = open(path, FsyncPolicy.INTERVAL)) {
+            journal.replay(0, record -> {
+            });
+            for (int i = 0; i < 1_000; i++) {
+                journal.append(new JournalRecord.LikesChanged(1, new int[]{i}, new int[0]));
+            }
+        }
+        List<JournalRecord> replayed = new ArrayList<>();
+        try (FileJournal journal = open(path, FsyncPolicy.INTERVAL)) {
+            journal.replay(0, replayed::add);
+        }
+        assertEquals(1_000, replayed.size());
+    }
+
+    @Test
+    void shouldRejectChangesBeforeApplyingThemWhenJournalIsClosed() {
+        Path path = dir.resolve("journal.log");
+        FileJournal journal = open(path, FsyncPolicy.ALWAYS);
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(journal);
+        InMemoryUserStorage userStorage = new InMemoryUserStorage(journal);
+        recover(journal, filmStorage, userStorage);
+        int filmId = filmStorage.createFilm(createFilm("Film")).getId();
+        int userId = userStorage.createUser(createUser("u1")).getId();
+        int friendId = userStorage.createUser(createUser("u2")).getId();
+        long filmsVersion = filmStorage.version();
+        long usersVersion = userStorage.version();
+        journal.close();
+
+        assertThrows(IllegalStateException.class, () -> filmStorage.addLike(filmId, userId));
+        assertThrows(IllegalStateException.class,
+                () -> filmStorage.applyLikes(filmId, new int[]{userId, friendId}, new int[0]));
+        assertThrows(IllegalStateException.class, () -> filmStorage.createFilm(createFilm("Late")));
+        assertThrows(IllegalStateException.class, () -> filmStorage.deleteFilm(filmId));
+        assertThrows(IllegalStateException.class, () -> userStorage.addFriend(userId, friendId));
+
+        // Отклонённые изменения не видны читателям
+        assertTrue(filmStorage.findById(filmId).getLikes().isEmpty());
+        assertEquals(1, filmStorage.count());
+        assertEquals(filmsVersion, filmStorage.version());
+        assertTrue(userStorage.findById(userId).getFriends().isEmpty());
+        assertEquals(usersVersion, userStorage.version());
+    }
+
+    @Test
+    void shouldJournalEveryVisibleChangeWhenClosedConcurrently() throws Exception {
+        Path path = dir.resolve("journal.log");
+        int threads = 4;
+        int usersPerFilm = 50;
+        FileJournal journal = open(path, FsyncPolicy.NEVER);
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(journal);
+        InMemoryUserStorage userStorage = new InMemoryUserStorage(journal);
+        recover(journal, filmStorage, userStorage);
+        int[] filmIds = new int[threads];
+        for (int t = 0; t < threads; t++) {
+            filmIds[t] = filmStorage.createFilm(createFilm("Film " + t)).getId();
+        }
+        int[] userIds = new int[usersPerFilm];
+        for (int i = 0; i < usersPerFilm; i++) {
+            userIds[i] = userStorage.createUser(createUser("u" + i)).getId();
+        }
+
+        // Лайки ставятся и снимаются, пока закрытие журнала не начнёт их отклонять
+        CountDownLatch started = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int filmId = filmIds[t];
+                writers.add(executor.submit(() -> {
+                    started.countDown();
+                    try {
+                        for (int i = 0; ; i++) {
+                            int userId = userIds[i % usersPerFilm];
+                            if (i / usersPerFilm % 2 == 0) {
+                                filmStorage.addLike(filmId, userId);
+                            } else {
+                                filmStorage.removeLike(filmId, userId);
+                            }
+                        }
+                    } catch (IllegalStateException e) {
+                        // журнал закрыт
+                    }
+                }));
+            }
+            started.await();
+            Thread.sleep(50);
+            journal.close();
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Всё, что увидели читатели, попало в журнал
+        try (FileJournal reopened = open(path, FsyncPolicy.NEVER)) {
+            InMemoryFilmStorage restored = new InMemoryFilmStorage(reopened);
+            recover(reopened, restored, new InMemoryUserStorage(reopened));
+            for (int filmId : filmIds) {
+                assertEquals(filmStorage.findById(filmId).getLikes(), restored.findById(filmId).getLikes());
+            }
+        }
+    }
+
+    @Test
+    void shouldBoundPendingBytesAndKeepEveryRecord() throws Exception {
+        Path path = dir.resolve("journal.log");
+        int maxPending = 256;
+        int threads = 4;
+        int perThread = 2_000;
+        try (FileJournal journal = new FileJournal(path, FsyncPolicy.NEVER, Duration.ofSeconds(1), maxPending)) {
+            journal.replay(0, record -> {
+            });
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> writers = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int userId = t;
+                    writers.add(executor.submit(() -> {
+                        for (int i = 0; i < perThread; i++) {
+                            journal.awaitWritable();
+                            journal.append(new JournalRecord.LikesChanged(i, new int[]{userId}, new int[0]));
+                            assertTrue(journal.pendingBytes() <= maxPending, "Буфер журнала вырос за предел");
+                        }
+                    }));
+                }
+                for (Future<?> writer : writers) {
+                    writer.get(60, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        List<JournalRecord> replayed = new ArrayList<>();
+        try (FileJournal journal = open(path, FsyncPolicy.NEVER)) {
+            journal.replay(0, replayed::add);
+        }
+        assertEquals(threads * perThread, replayed.size());
+    }
+
+    private static void recover(Journal journal, InMemoryFilmStorage filmStorage, InMemoryUserStorage userStorage) {
+        SnapshotManager snapshots = new SnapshotManager(new SnapshotProperties(), journal, filmStorage, userStorage);
+        new JournalRecovery(journal, snapshots, filmStorage, userStorage).recover();
+    }
+
+    private static FileJournal open(Path path, FsyncPolicy policy) {
+        try {
+            return new FileJournal(path, policy, Duration.ofMillis(5));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Film createFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return film;
+    }
+
+    private static User createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,181 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты снимков хранилищ.
+ * <p>
+ * Сравнение времени старта по снимку и по журналу запускается отдельно:
+ * {@code mvn test -Dfilmorate.stress=true -Dtest=SnapshotFileTest}
+ */
+public class SnapshotFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldRoundTripFilmsAndUsers() throws IOException {
+        Path path = dir.resolve("snapshot.bin");
+        Film film = createFilm("Film");
+        film.setId(7);
+        film.addLikes(new int[]{3, 1, 2});
+        User user = createUser("user");
+        user.setId(3);
+        user.setName(null);
+        user.addFriend(1);
+
+        SnapshotFile.write(path, 42, List.of(film), List.of(user));
+
+        List<Film> films = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        assertEquals(42, SnapshotFile.read(path, films::add, users::add));
+        assertEquals(List.of(film), films);
+        assertEquals(List.of(user), users);
+        assertEquals(Set.of(1, 2, 3), films.get(0).getLikes());
+    }
+
+    @Test
+    void shouldRejectCorruptedSnapshot() throws IOException {
+        Path path = dir.resolve("snapshot.bin");
+        SnapshotFile.write(path, 1, List.of(createFilm("Film")), List.of());
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(path, bytes);
+
+        assertThrows(IOException.class, () -> SnapshotFile.read(path, film -> {
+        }, user -> {
+        }));
+    }
+
+    @Test
+    void shouldRecoverFromSnapshotAndJournalTail() throws IOException {
+        SnapshotProperties properties = new SnapshotProperties();
+        properties.setEnabled(true);
+        properties.setPath(dir.resolve("snapshot.bin"));
+        Path journalPath = dir.resolve("journal.log");
+        int filmId;
+        long sizeBeforeCompaction;
+        try (FileJournal journal = open(journalPath)) {
+            InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(journal);
+            InMemoryUserStorage userStorage = new InMemoryUserStorage(journal);
+            SnapshotManager snapshots = new SnapshotManager(properties, journal, filmStorage, userStorage);
+            new JournalRecovery(journal, snapshots, filmStorage, userStorage).recover();
+
+            int userId = userStorage.createUser(createUser("u1")).getId();
+            filmId = filmStorage.createFilm(createFilm("Film")).getId();
+            filmStorage.addLike(filmId, userId);
+            sizeBeforeCompaction = Files.size(journalPath);
+
+            snapshots.takeSnapshot();
+            // Изменения после снимка живут только в журнале
+            filmStorage.removeLike(filmId, userId);
+            filmStorage.createFilm(createFilm("After snapshot"));
+        }
+        assertTrue(Files.size(journalPath) < sizeBeforeCompaction, "Журнал должен сжаться после снимка");
+
+        try (FileJournal journal = open(journalPath)) {
+            InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(journal);
+            InMemoryUserStorage userStorage = new InMemoryUserStorage(journal);
+            SnapshotManager snapshots = new SnapshotManager(properties, journal, filmStorage, userStorage);
+            new JournalRecovery(journal, snapshots, filmStorage, userStorage).recover();
+
+            assertEquals(2, filmStorage.findAll().size());
+            assertEquals(1, userStorage.findAll().size());
+            assertTrue(filmStorage.findById(filmId).getLikes().isEmpty());
+            assertEquals(filmId + 2, filmStorage.createFilm(createFilm("Next")).getId());
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "filmorate.stress", matches = "true")
+    void reportStartupTime() throws IOException {
+        System.out.printf("%-10s %-14s %-14s %-14s %-14s%n",
+                "films", "journal MB", "replay ms", "snapshot MB", "load ms");
+        for (int films : new int[]{10_000, 100_000, 1_000_000}) {
+            Path journalPath = dir.resolve("journal-" + films + ".log");
+            Path snapshotPath = dir.resolve("snapshot-" + films + ".bin");
+            try (FileJournal journal = new FileJournal(journalPath, FsyncPolicy.NEVER, Duration.ofSeconds(1))) {
+                InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(journal);
+                journal.replay(0, record -> {
+                });
+                for (int i = 0; i < films; i++) {
+                    Film film = filmStorage.createFilm(createFilm("Film " + i));
+                    for (int like = 0; like < 10; like++) {
+                        filmStorage.addLike(film.getId(), i + like);
+                    }
+                }
+                SnapshotFile.write(snapshotPath, journal.lastSeq(), filmStorage.findAll(), List.of());
+            }
+
+            long replayMs = measure(() -> {
+                InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+                InMemoryUserStorage userStorage = new InMemoryUserStorage();
+                try (FileJournal journal = new FileJournal(journalPath, FsyncPolicy.NEVER, Duration.ofSeconds(1))) {
+                    SnapshotManager snapshots = new SnapshotManager(new SnapshotProperties(), journal,
+                            filmStorage, userStorage);
+                    new JournalRecovery(journal, snapshots, filmStorage, userStorage).recover();
+                }
+                assertEquals(films, filmStorage.findAll().size());
+            });
+            long loadMs = measure(() -> {
+                InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+                SnapshotFile.read(snapshotPath, filmStorage::restoreFilm, user -> {
+                });
+                assertEquals(films, filmStorage.findAll().size());
+            });
+            System.out.printf("%-10d %-14.1f %-14d %-14.1f %-14d%n", films,
+                    Files.size(journalPath) / 1e6, replayMs, Files.size(snapshotPath) / 1e6, loadMs);
+        }
+    }
+
+    private static long measure(IoAction action) throws IOException {
+        action.run(); // прогрев
+        long started = System.nanoTime();
+        action.run();
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    private static FileJournal open(Path path) throws IOException {
+        return new FileJournal(path, FsyncPolicy.ALWAYS, Duration.ofMillis(5));
+    }
+
+    private static Film createFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return film;
+    }
+
+    private static User createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
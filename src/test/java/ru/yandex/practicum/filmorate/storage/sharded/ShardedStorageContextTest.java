@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.storage.sharded;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.persistence.Journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Приложение поднимается на шардированном хранилище, журнал и снимки при этом не создаются.
+ */
+@SpringBootTest(properties = {
+        "filmorate.storage.type=sharded",
+        "filmorate.storage.sharded.shards=4"
+})
+public class ShardedStorageContextTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Autowired
+    private UserStorage userStorage;
+
+    @Test
+    void shouldSelectShardedStorages() {
+        assertEquals(4, assertInstanceOf(ShardedFilmStorage.class, filmStorage).shardCount());
+        assertEquals(4, assertInstanceOf(ShardedUserStorage.class, userStorage).shardCount());
+        assertTrue(context.getBeansOfType(Journal.class).isEmpty());
+    }
+}
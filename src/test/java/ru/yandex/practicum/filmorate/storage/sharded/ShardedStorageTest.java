@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.storage.sharded;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты шардированных хранилищ: маршрутизация по ID и слияние ответов шардов.
+ */
+public class ShardedStorageTest {
+
+    @Test
+    void shouldKeepSequentialIdsAndMergeCatalogQueries() {
+        ShardedFilmStorage storage = new ShardedFilmStorage(4);
+        for (int i = 1; i <= 10; i++) {
+            Film film = storage.createFilm(createFilm("F" + i, LocalDate.of(2000, 1, 1).plusDays(10 - i)));
+            assertEquals(i, film.getId(), "Последовательное создание должно давать ID подряд");
+        }
+        storage.addLike(3, 1);
+        storage.addLike(3, 2);
+        storage.addLike(6, 1);
+        storage.applyLikes(8, new int[]{1, 2, 3}, new int[0]);
+
+        assertEquals(List.of(8, 3, 6, 1), ids(storage.findPopular(4)));
+        assertEquals(List.of(5, 6, 7), ids(storage.findPage(4, 3)));
+        assertEquals(List.of(10, 9, 8), ids(storage.findByReleaseDate(null, null, 3)));
+        assertArrayEquals(new int[]{3, 6, 8}, storage.findLikedFilmIds(1));
+        assertEquals(Set.of(2, 7), storage.findExistingIds(List.of(2, 7, 42, -1)));
+        assertEquals(6, storage.countLikes());
+        assertEquals(10, storage.findAll().size());
+
+        long version = storage.version();
+        assertTrue(storage.deleteFilm(8));
+        assertNull(storage.findById(8));
+        assertTrue(storage.version() > version);
+        assertArrayEquals(new int[]{3, 6}, storage.findLikedFilmIds(1));
+
+        storage.deleteAll();
+        assertEquals(0, storage.count());
+        assertEquals(1, storage.createFilm(createFilm("New", LocalDate.of(2000, 1, 1))).getId());
+    }
+
+    @Test
+    void shouldHandleCrossShardFriendshipsWithoutDeadlock() throws Exception {
+        ShardedUserStorage storage = new ShardedUserStorage(4);
+        UserService userService = new UserService(storage, new SimpleMeterRegistry(), event -> {
+        });
+        int users = 40;
+        for (int i = 0; i < users; i++) {
+            userService.createUser(createUser("u" + i));
+        }
+
+        // Встречные дружбы пар из разных шардов: a -> b в одном потоке, b -> a в другом
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                boolean forward = t % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    for (int round = 0; round < 200; round++) {
+                        for (int a = 1; a <= users; a++) {
+                            int b = a % users + 1;
+                            if (forward) {
+                                userService.addFriend(a, b);
+                            } else {
+                                userService.addFriend(b, a);
+                                userService.getCommonFriends(a, b);
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int a = 1; a <= users; a++) {
+            int b = a % users + 1;
+            assertTrue(storage.findById(a).getFriends().contains(b));
+            assertTrue(storage.findById(b).getFriends().contains(a));
+        }
+        // Кольцо дружб: у 1 и 3 общий друг 2, а 1 и 3 лежат в разных шардах
+        assertEquals(List.of(2), userService.getCommonFriends(1, 3).stream().map(User::getId).toList());
+    }
+
+    private static List<Integer> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+
+    private static Film createFilm(String name, LocalDate releaseDate) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Описание");
+        film.setReleaseDate(releaseDate);
+        film.setDuration(100);
+        return film;
+    }
+
+    private static User createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
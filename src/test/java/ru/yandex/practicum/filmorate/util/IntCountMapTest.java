@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для IntCountMap.
+ */
+public class IntCountMapTest {
+
+    @Test
+    void shouldCountAndRemoveZeroEntries() {
+        IntCountMap map = new IntCountMap();
+        assertEquals(1, map.add(5, 1));
+        assertEquals(3, map.add(5, 2));
+        assertEquals(0, map.add(5, -3));
+        assertEquals(0, map.get(5));
+        assertEquals(0, map.size());
+        assertThrows(IllegalArgumentException.class, () -> map.add(0, 1));
+    }
+
+    @Test
+    void shouldMatchHashMapUnderRandomUpdates() {
+        IntCountMap map = new IntCountMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 200_000; i++) {
+            int key = 1 + random.nextInt(2_000);
+            // Счётчики не уходят в минус, как в модели рекомендаций
+            int delta = expected.getOrDefault(key, 0) > 0 && random.nextBoolean() ? -1 : 1;
+            expected.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b);
+            map.add(key, delta);
+        }
+        assertEquals(expected.size(), map.size());
+        Map<Integer, Integer> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для IntSet.
+ * <p>
+ * Отчёт о расходе памяти на лайк запускается отдельно:
+ * {@code mvn test -Dfilmorate.stress=true -Dtest=IntSetTest}
+ */
+public class IntSetTest {
+
+    @Test
+    void shouldKeepSetSemantics() {
+        IntSet set = new IntSet();
+        assertTrue(set.add(5));
+        assertTrue(set.add(1));
+        assertTrue(set.add(3));
+        assertFalse(set.add(3), "Повторное добавление должно вернуть false");
+
+        assertEquals(3, set.size());
+        assertTrue(set.contains(1));
+        assertFalse(set.contains(2));
+        assertArrayEquals(new int[]{1, 3, 5}, set.toIntArray());
+
+        assertTrue(set.remove(3));
+        assertFalse(set.remove(3), "Повторное удаление должно вернуть false");
+        assertEquals(Set.of(1, 5), set);
+    }
+
+    @Test
+    void shouldGrowAndShrinkWithManyValues() {
+        IntSet set = new IntSet();
+        Set<Integer> expected = new HashSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            int value = random.nextInt(5_000);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+        }
+        assertEquals(expected, set);
+        assertEquals(expected.hashCode(), set.hashCode());
+    }
+
+    @Test
+    void shouldAddAndRemoveInBulk() {
+        IntSet set = new IntSet(List.of(2, 4, 6));
+
+        assertEquals(2, set.addAll(new int[]{5, 1, 4, 5}));
+        assertArrayEquals(new int[]{1, 2, 4, 5, 6}, set.toIntArray());
+
+        assertEquals(3, set.removeAll(new int[]{6, 1, 3, 2}));
+        assertArrayEquals(new int[]{4, 5}, set.toIntArray());
+    }
+
+    @Test
+    void shouldIntersectBalancedAndSkewedSets() {
+        Random random = new Random(11);
+        for (int[] sizes : new int[][]{{0, 10}, {100, 120}, {5, 50_000}, {3_000, 40}}) {
+            IntSet a = randomSet(random, sizes[0], 100_000);
+            IntSet b = randomSet(random, sizes[1], 100_000);
+            Set<Integer> expected = new TreeSet<>(a);
+            expected.retainAll(b);
+
+            int[] common = a.intersect(b);
+            assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), common);
+            assertEquals(expected.size(), a.intersectionSize(b));
+            assertEquals(expected.size(), b.intersectionSize(a));
+        }
+    }
+
+    @Test
+    void shouldDeduplicateWhenCopyingCollection() {
+        IntSet set = new IntSet(List.of(3, 1, 3, 2, 1));
+        assertArrayEquals(new int[]{1, 2, 3}, set.toIntArray());
+    }
+
+    @Test
+    void shouldKeepJsonShapeOfLikes() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        Film film = new Film();
+        film.addLike(2);
+        film.addLike(1);
+
+        String json = mapper.writeValueAsString(film);
+        assertTrue(json.contains("\"likes\":[1,2]"), json);
+
+        Film restored = mapper.readValue(json, Film.class);
+        assertEquals(Set.of(1, 2), restored.getLikes());
+        assertTrue(restored.addLike(3));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "filmorate.stress", matches = "true")
+    void reportBytesPerLike() {
+        int films = 1_000;
+        int likesPerFilm = 1_000;
+        System.out.printf("%-32s %-12s%n", "representation", "bytes/like");
+        report("HashSet<Integer>", films, likesPerFilm, HashSet::new);
+        report("ConcurrentHashMap.newKeySet()", films, likesPerFilm,
+                java.util.concurrent.ConcurrentHashMap::newKeySet);
+        report("IntSet", films, likesPerFilm, IntSet::new);
+    }
+
+    private static void report(String name, int films, int likesPerFilm, Supplier<Set<Integer>> factory) {
+        Random random = new Random(7);
+        long before = usedMemory();
+        List<Set<Integer>> sets = new ArrayList<>(films);
+        for (int f = 0; f < films; f++) {
+            Set<Integer> likes = factory.get();
+            while (likes.size() < likesPerFilm) {
+                // ID вне кэша Integer, как у реальных пользователей
+                likes.add(1_000 + random.nextInt(10_000_000));
+            }
+            sets.add(likes);
+        }
+        long after = usedMemory();
+        System.out.printf("%-32s %-12.1f%n", name, (after - before) / (double) (films * likesPerFilm));
+        assertEquals(films, sets.size());
+    }
+
+    private static IntSet randomSet(Random random, int size, int bound) {
+        IntSet set = new IntSet();
+        while (set.size() < size) {
+            set.add(random.nextInt(bound));
+        }
+        return set;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}